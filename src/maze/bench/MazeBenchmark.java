@@ -0,0 +1,82 @@
+package maze.bench;
+
+import maze.logic.Maze;
+import maze.logic.MazeGenerator;
+import maze.logic.ParallelMazeGenerator;
+
+/**
+ * Class that measures the maze generation time.
+ *
+ * Generates mazes of the given sizes (21, 101, 1001 and 10001 by default)
+ *   and prints a table with the best generation time of each size, with the
+ *   sequential and the parallel generators.
+ *   The biggest size needs about 1 GB of heap (eg: java -Xmx1g).
+ */
+public class MazeBenchmark {
+
+	private static final int DEFAULT_SIZES[] = {21, 101, 1001, 10001};
+
+	private static final int RUNS = 5;
+
+	public static void main(String[] args) {
+
+		int sizes[] = DEFAULT_SIZES;
+
+		if(args.length > 0) {
+			sizes = new int[args.length];
+			for(int i = 0; i < args.length; i++) {
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+
+		// Warm up.
+		for(int i = 0; i < 200; i++) {
+			new Maze(101).generate();
+		}
+
+		MazeGenerator parallel = new ParallelMazeGenerator();
+
+		System.out.println("Threads: " + Runtime.getRuntime().availableProcessors());
+		System.out.println("| Size | Cells | Sequential (ms) | ns/cell | Parallel (ms) | ns/cell |");
+		System.out.println("|------|-------|-----------------|---------|---------------|---------|");
+
+		for(int size: sizes) {
+
+			long cells = ((size - 1) / 2L) * ((size - 1) / 2L);
+
+			long sequentialTime = measure(size, null);
+			long parallelTime = measure(size, parallel);
+
+			System.out.println(String.format("| %d | %d | %.2f | %.1f | %.2f | %.1f |", size, cells,
+					sequentialTime / 1e6, (double) sequentialTime / cells,
+					parallelTime / 1e6, (double) parallelTime / cells));
+		}
+	}
+
+	/**
+	 * Measures the best generation time of a maze.
+	 * 
+	 * @param size : size of the maze
+	 * @param generator : generator to use (null for the default one)
+	 * @return the best time, in nanoseconds
+	 */
+	private static long measure(int size, MazeGenerator generator) {
+
+		long best = Long.MAX_VALUE;
+		int runs = (size > 2000) ? 1 : RUNS;
+
+		for(int i = 0; i < runs; i++) {
+			long start = System.nanoTime();
+
+			Maze maze = new Maze(size);
+			if(generator != null) {
+				maze.setGenerator(generator);
+			}
+			maze.generate();
+
+			best = Math.min(best, System.nanoTime() - start);
+		}
+
+		return best;
+	}
+}
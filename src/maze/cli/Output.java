@@ -4,14 +4,72 @@ import maze.logic.*;
 
 /**
  * Class that sends output to the console.
+ * 
+ * Every frame (menu, goals and board) is built in a buffer, reused from frame
+ *   to frame, and written at once.
+ *   On a terminal that understands ANSI escape codes, only the first frame is
+ *   written whole: the next ones only move the cursor to the cells of the
+ *   board (and the lines of the menu) that changed and write them again.
+ *   The cursor is moved to rows of the screen, so this is only done when the
+ *   whole frame, and the prompt below it, fit on the screen: otherwise the
+ *   screen scrolls, and every frame is written whole, as without ANSI.
  */
 public class Output {
 	
+	private static final String NEWLINE = System.getProperty("line.separator");
+	private static final String ESC = "\u001b[";
+	
+	// Rows of a terminal that doesn't tell its size.
+	public static final int DEFAULT_ROWS = 24;
+	
+	// Rows below the board: the prompt, what is typed, and the row the cursor is left on.
+	private static final int PROMPT_ROWS = 3;
+	
+	private boolean ansi;
+	private int rows;
+	
+	private StringBuilder frame = new StringBuilder();
+	
+	// What is on the screen (ANSI only): menu and goals, and the board below them.
+	private String shownHeader;
+	private char shown[][];
+	private int boardRow;
+	
 	/**
 	 * Default constructor for Output.
+	 *   Uses ANSI escape codes if the game runs on a terminal that supports them.
 	 */
 	public Output() {
-		
+		this(System.console() != null && System.getenv("TERM") != null && !System.getenv("TERM").equals("dumb"));
+	}
+	
+	/**
+	 * Constructor for Output.
+	 *   The screen has as many rows as the LINES variable says (DEFAULT_ROWS if it isn't set).
+	 * 
+	 * @param ansi : true to redraw only what changed, with ANSI escape codes
+	 */
+	public Output(boolean ansi) {
+		this(ansi, screenRows());
+	}
+	
+	/**
+	 * Constructor for Output.
+	 * 
+	 * @param ansi : true to redraw only what changed, with ANSI escape codes
+	 * @param rows : rows of the screen
+	 */
+	public Output(boolean ansi, int rows) {
+		this.ansi = ansi;
+		this.rows = rows;
+	}
+	
+	private static int screenRows() {
+		try {
+			return Integer.parseInt(System.getenv("LINES").trim());
+		} catch (Exception e) {
+			return DEFAULT_ROWS;
+		}
 	}
 
 	/**
@@ -21,13 +79,21 @@ public class Output {
 	 */
 	public void drawBoard(char[][] board) {
 		
+		frame.setLength(0);
+		appendBoard(board);
+		
+		System.out.print(frame);
+		System.out.flush();
+	}
+	
+	private void appendBoard(char[][] board) {
+		
 		for(int i = 0; i < board.length; i++) {
 			
 			for(int j = 0; j < board.length; j++) {
-				
-					System.out.print(" " + board[i][j] + " ");
-				}
-			System.out.println();
+				frame.append(' ').append(board[i][j]).append(' ');
+			}
+			frame.append(NEWLINE);
 		}
 	}
 	
@@ -35,12 +101,20 @@ public class Output {
 	 * Draws the game commands to the console.
 	 */
 	public void drawCommands() {
-		System.out.println("+-------- Commands -------+");
-		System.out.println("Move........... [w,a,s,d] |");
-		System.out.println("Confirm........  [enter]  |");
-		System.out.println("Quit...........    [q]    |");
-		System.out.println("+-------------------------+");
-		System.out.println("|                         |");
+		
+		frame.setLength(0);
+		appendCommands();
+		
+		System.out.print(frame);
+	}
+	
+	private void appendCommands() {
+		frame.append("+-------- Commands -------+").append(NEWLINE);
+		frame.append("Move........... [w,a,s,d] |").append(NEWLINE);
+		frame.append("Confirm........  [enter]  |").append(NEWLINE);
+		frame.append("Quit...........    [q]    |").append(NEWLINE);
+		frame.append("+-------------------------+").append(NEWLINE);
+		frame.append("|                         |").append(NEWLINE);
 	}
 	
 	/**
@@ -49,18 +123,26 @@ public class Output {
 	 * @param tasks
 	 */
 	public void drawGoals(Task[] tasks) {
-		System.out.println("+--------- Goals ---------+");
+		
+		frame.setLength(0);
+		appendGoals(tasks);
+		
+		System.out.print(frame);
+	}
+	
+	private void appendGoals(Task[] tasks) {
+		frame.append("+--------- Goals ---------+").append(NEWLINE);
 		for(int i = 0; i < tasks.length; i++) {
-			System.out.print((i + 1) + ". ");
+			frame.append(i + 1).append(". ");
 			if(tasks[i].isDone()) {
-				System.out.print("[X] ");
+				frame.append("[X] ");
 			}
 			else {
-				System.out.print("[ ] ");
+				frame.append("[ ] ");
 			}
-			System.out.println(tasks[i].getDescription());
+			frame.append(tasks[i].getDescription()).append(NEWLINE);
 		}
-		System.out.println("+-------------------------+");
+		frame.append("+-------------------------+").append(NEWLINE);
 	}
 
 	/**
@@ -99,6 +181,9 @@ public class Output {
 		case 8:
 			System.out.println("PlayAgain? (y/n)");
 			break;
+		case 9:
+			System.out.println("The game can't be autosaved! Trying again...");
+			break;
 		case 69:
 			System.out.println("|================|");
 			break;
@@ -124,13 +209,66 @@ public class Output {
 	 */
 	public void draw(GameLogic game) {
 		
-		// Draws menu.
-		drawCommands();
-		drawGoals(game.getTasks());
+		char board[][] = game.getBoard();
 		
-		// Draws board.
-		drawBoard(game.getBoard());
+		frame.setLength(0);
+		
+		// Menu.
+		appendCommands();
+		appendGoals(game.getTasks());
+		
+		if(!ansi || countLines(frame) + board.length + PROMPT_ROWS > rows) {
+			
+			// Whole frame, scrolling the screen.
+			appendBoard(board);
+			shown = null;
+		}
+		else if(shown == null || shown.length != board.length || !shownHeader.contentEquals(frame)) {
+			
+			// Whole frame (first one, or the menu has changed).
+			shownHeader = frame.toString();
+			boardRow = countLines(shownHeader) + 1;
+			
+			frame.insert(0, ESC + "H" + ESC + "2J");
+			appendBoard(board);
+			
+			shown = new char[board.length][];
+			for(int i = 0; i < board.length; i++) {
+				shown[i] = board[i].clone();
+			}
+		}
+		else {
+			
+			// Only the cells of the board that changed.
+			frame.setLength(0);
+			
+			for(int i = 0; i < board.length; i++) {
+				for(int j = 0; j < board.length; j++) {
+					if(board[i][j] != shown[i][j]) {
+						frame.append(ESC).append(boardRow + i).append(';').append(3 * j + 2).append('H').append(board[i][j]);
+						shown[i][j] = board[i][j];
+					}
+				}
+			}
+			
+			// Cursor below the board, erasing what was written there (input, messages).
+			frame.append(ESC).append(boardRow + board.length).append(";1H").append(ESC).append('J');
+		}
+		
+		System.out.print(frame);
+		System.out.flush();
+	}
+	
+	private int countLines(CharSequence text) {
+		
+		int lines = 0;
+		for(int i = 0; i < text.length(); i++) {
+			if(text.charAt(i) == '\n') {
+				lines++;
+			}
+		}
 		
+		return lines;
 	}
 	
 	/**
@@ -0,0 +1,312 @@
+package maze.gui;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.io.IOException;
+
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+import maze.logic.GameLogic;
+import maze.perf.InputLatency;
+
+/**
+ * Class that represents the board of the game window.
+ *
+ * The whole board is painted by this single panel, one picture per tile,
+ *   in one pass over the maze (paintComponent()), instead of having one
+ *   component per tile. The picture of each tile is picked by a SpriteTable.
+ *
+ * When the maze doesn't fit in the panel with tiles of at least MIN_TILE
+ *   pixels, only a window of the maze (the viewport) is shown, following the
+ *   hero: it moves when the hero gets close to its border, and is centered
+ *   on the hero again. Only the tiles in the viewport are ever painted, so
+ *   the cost of a frame doesn't depend on the size of the maze.
+ *
+ * After a turn only the tiles that changed are painted again (paintChanges()),
+ *   so the cost of a turn depends on the elements that moved, not on the size
+ *   of the maze.
+ *
+ * The game is only looked at on the game thread (paintBoard(), paintChanges()):
+ *   the codes of the tiles, the tiles changed and the hero are taken there
+ *   and handed to the event dispatch thread, which alone moves the viewport
+ *   and paints.
+ *
+ * The time from a command to its turn being painted is counted in the
+ *   InputLatency histograms (PAINT and TOTAL).
+ *
+ * @see GameWindow
+ */
+@SuppressWarnings("serial")
+public class BoardPanel extends JPanel {
+
+	// Smallest size of a tile, in pixels.
+	public static final int MIN_TILE = 24;
+
+	private GameLogic gameLogic;
+
+	private TextureCache textures = new TextureCache();
+	private SpriteTable sprites;
+
+	// Size of the panel and of the maze the pictures were last scaled for.
+	private int lastWidth, lastHeight, lastSize;
+
+	// Viewport: first row and column shown, and number of rows and columns shown.
+	private int firstRow, firstColumn;
+	private int rows, columns;
+
+	// Hero, as of the last turn handed to the event dispatch thread.
+	private int heroX = -1, heroY = -1;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param gameLogic : current game
+	 */
+	public BoardPanel(GameLogic gameLogic) {
+		this.gameLogic = gameLogic;
+		this.sprites = new SpriteTable(gameLogic);
+
+		setOpaque(true);
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.swing.JComponent#paintComponent(java.awt.Graphics)
+	 */
+	@Override
+	protected void paintComponent(Graphics g) {
+
+		super.paintComponent(g);
+
+		// The same codes for the whole paint, even if a new game is handed meanwhile.
+		byte codes[][] = sprites.getCodes();
+		if(codes == null) {
+			return;
+		}
+
+		int size = codes.length;
+		int width = getWidth(), height = getHeight();
+
+		if(size == 0 || width == 0 || height == 0) {
+			return;
+		}
+
+		if(width != lastWidth || height != lastHeight || size != lastSize) {
+			textures.invalidate();
+			lastWidth = width;
+			lastHeight = height;
+			lastSize = size;
+		}
+
+		followHero(size);
+
+		// Only the tiles inside the area being painted.
+		Rectangle clip = g.getClipBounds();
+		if(clip == null) {
+			clip = new Rectangle(0, 0, width, height);
+		}
+
+		int fromRow = Math.max(0, clip.y * rows / height - 1);
+		int toRow = Math.min(rows - 1, (clip.y + clip.height) * rows / height + 1);
+		int fromColumn = Math.max(0, clip.x * columns / width - 1);
+		int toColumn = Math.min(columns - 1, (clip.x + clip.width) * columns / width + 1);
+
+		for(int i = fromRow; i <= toRow; i++) {
+
+			// Rows and columns share the panel as evenly as possible.
+			int top = i * height / rows;
+			int bottom = (i + 1) * height / rows;
+
+			for(int j = fromColumn; j <= toColumn; j++) {
+
+				int left = j * width / columns;
+				int right = (j + 1) * width / columns;
+
+				int texture = SpriteTable.texture(codes[firstRow + i][firstColumn + j]);
+
+				g.drawImage(textures.get(texture, right - left, bottom - top), left, top, null);
+			}
+		}
+	}
+
+	/**
+	 * Paints the whole board again.
+	 *   Called on the game thread, once the board is set.
+	 */
+	public void paintBoard() {
+
+		sprites.update();
+
+		final int x = gameLogic.getHero().getX(), y = gameLogic.getHero().getY();
+
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				heroX = x;
+				heroY = y;
+				repaint();
+			}
+		});
+	}
+
+	/**
+	 * Paints again the tiles changed by the last turn (see SpriteTable.update()).
+	 *   Every tile is painted on its own, so tiles far apart don't make
+	 *   Swing paint all the tiles in between.
+	 *   If the viewport has moved, all of it is painted again.
+	 *   Called on the game thread, once the board is set.
+	 *
+	 * @param command : System.nanoTime() when the key of the turn was pressed, 0 if unknown
+	 */
+	public void paintChanges(final long command) {
+
+		final long request = System.nanoTime();
+
+		final int tiles[] = sprites.update(gameLogic.getBoardChanges());
+		final int size = sprites.getSize();
+
+		final int x = gameLogic.getHero().getX(), y = gameLogic.getHero().getY();
+
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+
+				heroX = x;
+				heroY = y;
+
+				if(tiles == null || followHero(size) || tiles.length > rows * columns / 4) {
+					paintImmediately(0, 0, getWidth(), getHeight());
+				}
+				else {
+					for(int tile: tiles) {
+						Rectangle area = tileArea(tile / size, tile % size);
+						if(area != null) {
+							paintImmediately(area);
+						}
+					}
+				}
+
+				painted(command, request);
+			}
+		});
+	}
+
+	/**
+	 * Gets the first row (X coordinate) shown.
+	 *
+	 * @return first row of the viewport
+	 */
+	public int getFirstRow() {
+		return firstRow;
+	}
+
+	/**
+	 * Gets the first column (Y coordinate) shown.
+	 *
+	 * @return first column of the viewport
+	 */
+	public int getFirstColumn() {
+		return firstColumn;
+	}
+
+	/**
+	 * Gets the number of rows shown.
+	 *
+	 * @return rows of the viewport
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * Gets the number of columns shown.
+	 *
+	 * @return columns of the viewport
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Fits the viewport to the panel and moves it to keep the hero in sight.
+	 *   The viewport only moves when the hero is within a quarter of the
+	 *   viewport from its border (or outside it), and is then centered on him.
+	 *   Called on the event dispatch thread.
+	 *
+	 * @param size : size of the maze
+	 * @return true if the viewport has changed
+	 */
+	private boolean followHero(int size) {
+
+		int oldFirstRow = firstRow, oldFirstColumn = firstColumn;
+		int oldRows = rows, oldColumns = columns;
+
+		rows = Math.max(1, Math.min(size, getHeight() / MIN_TILE));
+		columns = Math.max(1, Math.min(size, getWidth() / MIN_TILE));
+
+		if(heroX >= 0) {
+			firstRow = follow(firstRow, rows, heroX, size);
+			firstColumn = follow(firstColumn, columns, heroY, size);
+		}
+
+		return firstRow != oldFirstRow || firstColumn != oldFirstColumn || rows != oldRows || columns != oldColumns;
+	}
+
+	private int follow(int first, int shown, int hero, int size) {
+
+		int margin = shown / 4;
+
+		if(hero < first + margin || hero > first + shown - 1 - margin) {
+			first = hero - shown / 2;
+		}
+
+		return Math.max(0, Math.min(first, size - shown));
+	}
+
+	/**
+	 * Counts the time taken to paint a turn, and since its key was pressed.
+	 */
+	private void painted(long command, long request) {
+
+		InputLatency.record(InputLatency.PAINT, request);
+
+		if(command != 0) {
+			InputLatency.record(InputLatency.TOTAL, command);
+		}
+	}
+
+	/**
+	 * Gets the area of the panel covered by the tile (x, y), null if it isn't in the viewport.
+	 */
+	private Rectangle tileArea(int x, int y) {
+
+		int i = x - firstRow, j = y - firstColumn;
+
+		if(i < 0 || j < 0 || i >= rows || j >= columns) {
+			return null;
+		}
+
+		int width = getWidth(), height = getHeight();
+
+		int top = i * height / rows;
+		int left = j * width / columns;
+
+		return new Rectangle(left, top, (j + 1) * width / columns - left, (i + 1) * height / rows - top);
+	}
+
+	/**
+	 * Loads to memory all the pictures.
+	 */
+	public void initBufferedImages() {
+
+		try {
+
+			textures.load();
+
+		} catch (IOException e) {
+
+			e.printStackTrace();
+
+			System.exit(0);
+		}
+
+	}
+}
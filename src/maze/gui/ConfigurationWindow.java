@@ -356,7 +356,7 @@ public class ConfigurationWindow extends Window {
 				config.setDragonPerc(dragonPerc.getValue()/100.0);
 				config.setMazeSize(mazeSize.getValue());
 				
-				keyCode = 1;
+				setKeyCode(1);
 			}
 		});
 		mnChanges.add(btnConfirm);
@@ -372,7 +372,7 @@ public class ConfigurationWindow extends Window {
 				dragonPercLabel.setEnabled(true);
 				dragonPerc.setEnabled(true);
 				
-				keyCode = 2;
+				setKeyCode(2);
 			}
 		});
 		mnChanges.add(btnCancel);
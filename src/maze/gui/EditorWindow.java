@@ -1,6 +1,5 @@
 package maze.gui;
 
-import javax.imageio.ImageIO;
 import javax.swing.JPanel;
 
 import java.awt.CardLayout;
@@ -9,7 +8,6 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.GridLayout;
-import java.awt.Image;
 
 import javax.swing.JLabel;
 
@@ -21,8 +19,6 @@ import maze.logic.Hero;
 
 import java.awt.event.ActionListener;
 import java.awt.event.ActionEvent;
-import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
 
 import javax.swing.BorderFactory;
@@ -67,8 +63,11 @@ public class EditorWindow extends Window {
 
 	private JPanel pics;
 	private JPanel tiles;
+	
+	// Tiles being edited: walls ('x'), floor (' ') and elements ('Y', 'E', 'D').
+	private char mazeTiles[][];
 
-	private BufferedImage wall, floor, dragonPic, hero, sword, exit;
+	private TextureCache textures = new TextureCache();
 
 	private JLabel label;
 	
@@ -93,6 +92,7 @@ public class EditorWindow extends Window {
 		this.game.setMaze(new Maze(size));
 		
 		this.mazeSize = size;
+		this.mazeTiles = new char[size][size];
 		
 		picInfo = new int[numElements];
 		
@@ -184,35 +184,35 @@ public class EditorWindow extends Window {
 			
 			private boolean takeMazeImage(int i, int j) {
 				if(game.getMaze().getExit().isAt(i, j)) {
-					drawToPanel(wall);
+					drawToPanel(TextureCache.WALL);
 					picInfo[0] = 0;
 					return true;
 				}
 				
-				if(game.getMaze().getTiles()[i][j] == 'Y'){
-					drawToPanel(floor);
-					game.getMaze().getTiles()[i][j] = ' ';
+				if(mazeTiles[i][j] == 'Y'){
+					drawToPanel(TextureCache.FLOOR);
+					mazeTiles[i][j] = ' ';
 					picInfo[1] = 0;
 					return true;
 				}
 				
-				if(game.getMaze().getTiles()[i][j] == 'E'){
-					drawToPanel(floor);
-					game.getMaze().getTiles()[i][j] = ' ';
+				if(mazeTiles[i][j] == 'E'){
+					drawToPanel(TextureCache.FLOOR);
+					mazeTiles[i][j] = ' ';
 					picInfo[2] = 0;
 					return true;
 				}
 				
-				if(game.getMaze().getTiles()[i][j] == 'D'){
-					drawToPanel(floor);
-					game.getMaze().getTiles()[i][j] = ' ';
+				if(mazeTiles[i][j] == 'D'){
+					drawToPanel(TextureCache.FLOOR);
+					mazeTiles[i][j] = ' ';
 					picInfo[3] = 1;
 					return true;
 				}
 				
-				if(game.getMaze().getTiles()[i][j] == 'x'){
-					drawToPanel(floor);
-					game.getMaze().getTiles()[i][j] = ' ';
+				if(mazeTiles[i][j] == 'x'){
+					drawToPanel(TextureCache.FLOOR);
+					mazeTiles[i][j] = ' ';
 					picInfo[4] = 1;
 					return true;
 				}
@@ -225,7 +225,7 @@ public class EditorWindow extends Window {
 				case 0:
 					// EXIT
 					if(isProperExitPlace(i,j)) {
-						drawToPanel(exit);
+						drawToPanel(TextureCache.EXIT);
 						// Orientation is different
 						game.getMaze().setExit(new Element(i,j,'S'));
 						picInfo[selected] = -1;
@@ -235,8 +235,8 @@ public class EditorWindow extends Window {
 				case 1:
 					// HERO
 					if(isBetween(i, 1, mazeSize-2) && isBetween(j, 1, mazeSize-2)) {
-						drawToPanel(hero);
-						game.getMaze().getTiles()[i][j] = 'Y';
+						drawToPanel(TextureCache.HERO);
+						mazeTiles[i][j] = 'Y';
 						picInfo[selected] = -1;
 						return true;
 					}
@@ -244,8 +244,8 @@ public class EditorWindow extends Window {
 				case 2:
 					// SWORD
 					if(isBetween(i, 1, mazeSize-2) && isBetween(j, 1, mazeSize-2)) {
-						drawToPanel(sword);
-						game.getMaze().getTiles()[i][j] = 'E';
+						drawToPanel(TextureCache.SWORD);
+						mazeTiles[i][j] = 'E';
 						picInfo[selected] = -1;
 						return true;
 					}
@@ -253,16 +253,16 @@ public class EditorWindow extends Window {
 				case 3:
 					// DRAGONS
 					if(isBetween(i, 1, mazeSize-2) && isBetween(j, 1, mazeSize-2)) {
-						game.getMaze().getTiles()[i][j] = 'D';
-						drawToPanel(dragonPic);
+						mazeTiles[i][j] = 'D';
+						drawToPanel(TextureCache.DRAGON);
 						return true;
 					}
 					break;
 				case 4:
 					// WALL
 					if(isBetween(i, 1, mazeSize-2) && isBetween(j, 1, mazeSize-2)) {
-						game.getMaze().getTiles()[i][j] = 'x';
-						drawToPanel(wall);
+						mazeTiles[i][j] = 'x';
+						drawToPanel(TextureCache.WALL);
 						return true;
 					}
 					break;
@@ -315,7 +315,7 @@ public class EditorWindow extends Window {
 			public void actionPerformed(ActionEvent e) {
 				if(isVerified()) {
 					saveElements();
-					keyCode = 1;
+					setKeyCode(1);
 				}
 			}
 		});
@@ -352,7 +352,7 @@ public class EditorWindow extends Window {
 				helpDialog.pack();
 				helpDialog.setLocationRelativeTo(null);
 				helpDialog.setVisible(true);
-				keyCode = 2;
+				setKeyCode(2);
 			}
 		});
 		menuBar.add(helpItem);
@@ -360,7 +360,7 @@ public class EditorWindow extends Window {
 		JMenuItem quitItem = new JMenuItem("Quit");
 		quitItem.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent arg0) {
-				keyCode = 3;
+				setKeyCode(3);
 			}
 		});
 		menuBar.add(quitItem);
@@ -385,13 +385,13 @@ public class EditorWindow extends Window {
 		for(int i = 0; i < mazeSize; i++) {
 			for(int j = 0; j < mazeSize; j++) {
 				if((i == 0) || (j == 0) || (i == (mazeSize - 1)) || (j == (mazeSize - 1))) {
-					drawToPanel(wall);
-					game.getMaze().getTiles()[i][j] = 'x';
+					drawToPanel(TextureCache.WALL);
+					mazeTiles[i][j] = 'x';
 					tiles.add(label);
 				}
 				else {
-					drawToPanel(floor);
-					game.getMaze().getTiles()[i][j] = ' ';
+					drawToPanel(TextureCache.FLOOR);
+					mazeTiles[i][j] = ' ';
 					tiles.add(label);
 				}
 			}
@@ -407,22 +407,20 @@ public class EditorWindow extends Window {
 		
 		// Creates hero, eagle, sword
 		// Counts dragons
-		for(int i = 1; i < game.getMaze().getTiles().length - 1; i++) {
-			for(int j = 1; j < game.getMaze().getTiles().length - 1; j++) {
+		for(int i = 1; i < mazeTiles.length - 1; i++) {
+			for(int j = 1; j < mazeTiles.length - 1; j++) {
 				
-				if(game.getMaze().getTiles()[i][j] == 'Y') {
+				if(mazeTiles[i][j] == 'Y') {
 					
 					game.setHero(new Hero(i,j,'Y'));
 					game.setEagle(new Eagle(i,j,'V'));
 					game.getHero().setHasEagle(true);
-					game.getMaze().getTiles()[i][j] = ' ';
 				}
-				else if(game.getMaze().getTiles()[i][j] == 'E') {
+				else if(mazeTiles[i][j] == 'E') {
 					
 					game.setSword(new Element(i,j,'Y'));
-					game.getMaze().getTiles()[i][j] = ' ';
 				}
-				else if(game.getMaze().getTiles()[i][j] == 'D') {
+				else if(mazeTiles[i][j] == 'D') {
 					
 					numberOfDragons++;
 				}
@@ -435,12 +433,11 @@ public class EditorWindow extends Window {
 			
 			int index = 0;
 			
-			for(int i = 0; i < game.getMaze().getTiles().length; i++) {
-				for(int j = 0; j < game.getMaze().getTiles().length; j++) {
-					if(game.getMaze().getTiles()[i][j] == 'D') {
+			for(int i = 0; i < mazeTiles.length; i++) {
+				for(int j = 0; j < mazeTiles.length; j++) {
+					if(mazeTiles[i][j] == 'D') {
 						
 						game.getDragons()[index] = new Dragon(i,j,'D');
-						game.getMaze().getTiles()[i][j] = ' ';
 						index++;
 					}
 				}
@@ -449,6 +446,9 @@ public class EditorWindow extends Window {
 		else {
 			game.setDragons(new Dragon[0]);
 		}
+		
+		// Only the walls are kept in the maze (the elements are floor).
+		game.getMaze().setTiles(mazeTiles);
 	}
 
 	/**
@@ -500,19 +500,19 @@ public class EditorWindow extends Window {
 	private void drawSamples() {
 		pics.removeAll();
 		
-		drawSampleToPanel(exit, 0);
+		drawSampleToPanel(TextureCache.EXIT, 0);
 		pics.add(label);
 		
-		drawSampleToPanel(hero, 1);
+		drawSampleToPanel(TextureCache.HERO, 1);
 		pics.add(label);
 		
-		drawSampleToPanel(sword, 2);
+		drawSampleToPanel(TextureCache.SWORD, 2);
 		pics.add(label);
 		
-		drawSampleToPanel(dragonPic, 3);
+		drawSampleToPanel(TextureCache.DRAGON, 3);
 		pics.add(label);
 		
-		drawSampleToPanel(wall, 4);
+		drawSampleToPanel(TextureCache.WALL, 4);
 		pics.add(label);
 		
 		pics.revalidate();
@@ -524,7 +524,7 @@ public class EditorWindow extends Window {
 	public void paint() {
 	}
 	
-	private void drawSampleToPanel(final Image name, int index) {
+	private void drawSampleToPanel(final int texture, int index) {
 		
 		final int border = 4;
 		
@@ -532,7 +532,7 @@ public class EditorWindow extends Window {
 			
 			public void paintComponent(Graphics g) {
 
-				g.drawImage(name, border, border, this.getWidth() - border, this.getHeight() - border, null);
+				g.drawImage(textures.get(texture, this.getWidth() - border, this.getHeight() - border), border, border, null);
 
 				this.setOpaque(false);
 				super.paintComponent(g);
@@ -558,14 +558,14 @@ public class EditorWindow extends Window {
 	/**
 	 * Draws to a JLabel the given image.
 	 * 
-	 * @param name : name of the image
+	 * @param texture : the image (see TextureCache)
 	 */
-	private void drawToPanel(final Image name) {
+	private void drawToPanel(final int texture) {
 		label = new JLabel("",JLabel.CENTER) {
 
 			public void paintComponent(Graphics g) {
 
-				g.drawImage(name, 0, 0, this.getWidth(), this.getHeight(), null);
+				g.drawImage(textures.get(texture, this.getWidth(), this.getHeight()), 0, 0, null);
 
 				this.setOpaque(false);
 				super.paintComponent(g);
@@ -584,12 +584,7 @@ public class EditorWindow extends Window {
 
 		try {
 
-			wall = ImageIO.read(new File("textures/wall.png"));
-			floor = ImageIO.read(new File("textures/floor.png"));
-			dragonPic = ImageIO.read(new File("textures/dragon_on_floor.png"));
-			hero = ImageIO.read(new File("textures/hero_on_floor.png"));
-			sword = ImageIO.read(new File("textures/sword_on_floor.png"));
-			exit = ImageIO.read(new File("textures/exit.png"));
+			textures.load();
 
 		} catch (IOException e) {
 
@@ -1,25 +1,17 @@
 package maze.gui;
 
-import javax.imageio.ImageIO;
-import javax.swing.JPanel;
+import javax.swing.JFileChooser;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
-import java.awt.BorderLayout;
 import java.awt.CardLayout;
 import java.awt.Dimension;
-import java.awt.Graphics;
-import java.awt.GridLayout;
-import java.awt.Image;
 
-import javax.swing.JLabel;
-
-import maze.logic.Dragon;
 import maze.logic.GameLogic;
 
 import java.awt.event.ActionListener;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 
@@ -48,14 +40,7 @@ public class GameWindow extends Window implements KeyListener {
 
 	private GameLogic gameLogic;
 
-	private JPanel game;
-	
-	private BufferedImage wall, floor, dragonPic, hero, eagle, sword, exit;
-	private BufferedImage heroWithEagle, heroWithSword, heroWithSwordAndEagle;
-	private BufferedImage eagleWithSword, eagleUponDragon, eagleUponDragonAsleep, eagleUponDragonWithSwordAsleep, eagleUponDragonWithSword, eagleUponWall, eagleUponWallWithSword;
-	private BufferedImage dragonAsleep, dragonWithSword, dragonWithSwordAsleep;
-	
-	private JLabel label;
+	private BoardPanel game;
 	
 	/**
 	 * Default Constructor.
@@ -84,7 +69,7 @@ public class GameWindow extends Window implements KeyListener {
 	 */
 	private void initialize() {
 		
-		game = new JPanel();
+		game = new BoardPanel(gameLogic);
 		
 		setResizable(false);
 		setBounds(100, 100, 500, 500);
@@ -92,9 +77,6 @@ public class GameWindow extends Window implements KeyListener {
 		setPreferredSize(new Dimension(800, 800));
 		addKeyListener(this);
 
-		// Default grid layout, just for the sake of design. 
-		game.setLayout(new GridLayout(9, 9, 0, 0));
-		
 		getContentPane().add(game, "game");
 
 		JMenuBar menuBar = new JMenuBar();
@@ -106,7 +88,7 @@ public class GameWindow extends Window implements KeyListener {
 				switch(JOptionPane.showConfirmDialog(null, "Are you sure? \nNote: all unsaved data will be lost.")) {
 				case JOptionPane.YES_OPTION: // GRAPHICAL
 					
-					keyCode = 1;
+					setKeyCode(1);
 					break;
 				default:
 					return;
@@ -119,7 +101,7 @@ public class GameWindow extends Window implements KeyListener {
 		JMenuItem saveGameMenuItem = new JMenuItem("Save Game");
 		saveGameMenuItem.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
-				keyCode = 2;
+				setKeyCode(2);
 			}
 		});
 		menuBar.add(saveGameMenuItem);
@@ -127,7 +109,7 @@ public class GameWindow extends Window implements KeyListener {
 		JMenuItem loadGameMenuItem = new JMenuItem("Load Game");
 		loadGameMenuItem.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
-				keyCode = 3;
+				setKeyCode(3);
 			}
 		});
 		menuBar.add(loadGameMenuItem);
@@ -135,7 +117,7 @@ public class GameWindow extends Window implements KeyListener {
 		JMenuItem configurationMenuItem = new JMenuItem("Configuration");
 		configurationMenuItem.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
-				keyCode = 4;
+				setKeyCode(4);
 			}
 		});
 		menuBar.add(configurationMenuItem);
@@ -146,7 +128,7 @@ public class GameWindow extends Window implements KeyListener {
 				switch(JOptionPane.showConfirmDialog(null, "Are you sure? \nNote: all unsaved data will be lost.")) {
 				case JOptionPane.YES_OPTION: // GRAPHICAL
 					
-					keyCode = 5;
+					setKeyCode(5);
 					
 					break;
 				default:
@@ -165,235 +147,116 @@ public class GameWindow extends Window implements KeyListener {
 	
 	/**
 	 * Paint method. Used to paint the frame whenever a change is made.
+	 *   Called on the game thread, once the board is set.
 	 */
 	public void paint() {
-		drawBoard();
+		game.paintBoard();
 	}
 	
 	/**
-	 * Draws the game state to the frame.
-	 *   (All the pictures)
+	 * Paints only the tiles changed by the last turn.
+	 * 
+	 * @param command : System.nanoTime() when the key of the turn was pressed, 0 if unknown
 	 */
-	private void drawBoard() {
-		
-		int i,j;
+	public void paintChanges(long command) {
+		game.paintChanges(command);
+	}
+	
+	/**
+	 * Asks the user for a saved game (.sav) to load.
+	 * 
+	 * @return name of the file chosen, null if none
+	 */
+	public String chooseFileToLoad() {
+		JFileChooser fileChooser = newSaveFileChooser();
 		
-		game.removeAll();
-		game.setLayout(new GridLayout(gameLogic.getMaze().getSize(), gameLogic.getMaze().getSize(),0,0));
-		//game.setLayout(new GridLayout(9, 9, 0, 0));
-
-		for(i = 0; i < gameLogic.getMaze().getSize(); i++) {
-			for(j = 0; j < gameLogic.getMaze().getSize(); j++) {
-				
-				drawCorrectImageToPanel(i, j);
-
-				game.add(label, BorderLayout.CENTER);
-				
-			}
+		if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+			return fileChooser.getSelectedFile().getName();
 		}
 		
-		game.revalidate();
-
+		return null;
 	}
-
+	
 	/**
-	 * Given an x and y correspondant to maze coordinates, the application draws the correct image to the corresponding panel.
+	 * Asks the user for the file (.sav) to save the game to.
 	 * 
-	 * @param x : X coordinate 
-	 * @param y : Y coordinate
+	 * @return name of the file chosen, null if none
 	 */
-	private void drawCorrectImageToPanel(int x, int y) {
-
-		for(Dragon dragon: gameLogic.getDragons()) {
-			
-			if(dragon.isAlive()) {
-				
-				if(dragon.isAt(x, y)) {
-					
-					if(gameLogic.getEagle().isAt(x, y)) {
-						
-						if(dragon.hasSword()) {
-							if(dragon.isAwake()) {
-								drawToPanel(eagleUponDragonWithSword);
-							}
-							else {
-								drawToPanel(eagleUponDragonWithSwordAsleep);
-							}			
-						}
-						else {
-							if(dragon.isAwake()) {
-								drawToPanel(eagleUponDragon);
-							}
-							else {
-								drawToPanel(eagleUponDragonAsleep);
-							}
-						}
-					}
-					else {
-						if(dragon.hasSword()) {
-							if(dragon.isAwake()) {
-								drawToPanel(dragonWithSword);
-							}
-							else {
-								drawToPanel(dragonWithSwordAsleep);
-							}
-						}
-						else {
-							if(dragon.isAwake()) {
-								drawToPanel(dragonPic);
-							}
-							else {
-								drawToPanel(dragonAsleep);
-							}
-						}
-					}
-					
-					return;
-				}
-			}
-		}
+	public String chooseFileToSave() {
+		JFileChooser fileChooser = newSaveFileChooser();
 		
-		if(gameLogic.getHero().isAlive()) {
-			
-			if(gameLogic.getHero().isAt(x, y)) {
-				
-				if(gameLogic.getHero().hasEagle()) {
-					
-					if(gameLogic.getHero().hasSword()) {		
-						drawToPanel(heroWithSwordAndEagle);
-					}
-					else {
-						drawToPanel(heroWithEagle);
-					}
-					
-				}
-				else {
-					
-					if(gameLogic.getHero().hasSword()) {
-						drawToPanel(heroWithSword);
-					}
-					else {
-						drawToPanel(hero);
-					}
-				}
-				
-				return;
-			}
+		if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+			return fileChooser.getSelectedFile().getName();
 		}
 		
-		if (gameLogic.getEagle().isAlive() && !gameLogic.getHero().hasEagle()) {
-			
-			if(gameLogic.getEagle().isAt(x, y)) {
-				
-				if(gameLogic.getEagle().hasSword()) {
-					
-					if(gameLogic.getMaze().getTiles()[x][y] == 'x') {
-						drawToPanel(eagleUponWallWithSword);
-					}
-					else {
-						drawToPanel(eagleWithSword);
-					}
-				}
-				else {
-					if(gameLogic.getMaze().getTiles()[x][y] == 'x') {
-						drawToPanel(eagleUponWall);
-					}
-					else {
-						drawToPanel(eagle);
-					}
-				}
-				return;
-			}
+		return null;
+	}
+	
+	/**
+	 * Tells the user how the game ended.
+	 * 
+	 * @param won : true if the hero won
+	 */
+	public void showGameOver(boolean won) {
+		if(won) {
+			JOptionPane.showMessageDialog(this, "You won!");
 		}
-		
-		if(!gameLogic.getHero().hasSword() && !gameLogic.getEagle().hasSword()) {
-			if(gameLogic.getSword().isAt(x, y)) {
-				drawToPanel(sword);
-				return;
-			}
+		else {
+			JOptionPane.showMessageDialog(this, "Game Over!");
 		}
-		
-		if(gameLogic.getMaze().getExit().isAt(x, y)) {
-			drawToPanel(exit);
-			return; 
+	}
+	
+	/**
+	 * Tells the user if the game was saved (see GameLogic.saveGame()).
+	 *   Called on the event dispatch thread.
+	 * 
+	 * @param fileName : the filename of the file
+	 * @param error : why the game couldn't be saved, null if it was
+	 */
+	public void showSaveResult(String fileName, IOException error) {
+		if(error == null) {
+			JOptionPane.showMessageDialog(this, "Game saved to " + fileName + ".");
 		}
-
-		switch(gameLogic.getMaze().getTiles()[x][y]) {
-		case 'x':
-			drawToPanel(wall);
-			break;
-		case ' ':
-			drawToPanel(floor);
-			break;
-		default:
-			drawToPanel(floor);
-			break;
+		else {
+			JOptionPane.showMessageDialog(this, "The game couldn't be saved to " + fileName + ":\n" + error.getMessage(),
+					"Save", JOptionPane.ERROR_MESSAGE);
 		}
-		
 	}
-
+	
 	/**
-	 * Draws to a JLabel the given image.
+	 * Tells the user that the game can't be autosaved (see Autosave), or that it is again.
+	 *   Called on the event dispatch thread.
 	 * 
-	 * @param name : name of the image
+	 * @param error : why the game can't be autosaved, null if it is again
 	 */
-	private void drawToPanel(final Image name) {
-		label = new JLabel() {
-			
-			public void paintComponent(Graphics g) {
-				
-				g.drawImage(name, 0, 0, this.getWidth(), this.getHeight(), null);
-				
-				this.setOpaque(false);
-				super.paintComponent(g);
-			}
-			
-		};
-		
+	public void showAutosaveFailure(IOException error) {
+		if(error != null) {
+			JOptionPane.showMessageDialog(this, "The game can't be autosaved (it will be tried again):\n" + error.getMessage(),
+					"Autosave", JOptionPane.WARNING_MESSAGE);
+		}
+		else {
+			JOptionPane.showMessageDialog(this, "The game is autosaved again.");
+		}
 	}
-
+	
+	private JFileChooser newSaveFileChooser() {
+		JFileChooser fileChooser = new JFileChooser();
+		FileNameExtensionFilter filter = new FileNameExtensionFilter(".sav files", new String[] {"sav"});
+		fileChooser.setFileFilter(filter);
+		fileChooser.setCurrentDirectory(new File( "." ));
+		return fileChooser;
+	}
+	
 	/**
 	 * Loads to memory all the pictures.
 	 */
 	public void initBufferedImages() {
-		
-		try {
-			
-			wall = ImageIO.read(new File("textures/wall.png"));
-			floor = ImageIO.read(new File("textures/floor.png"));
-			dragonPic = ImageIO.read(new File("textures/dragon_on_floor.png"));
-			hero = ImageIO.read(new File("textures/hero_on_floor.png"));
-			eagle = ImageIO.read(new File("textures/eagle_on_floor.png"));
-			sword = ImageIO.read(new File("textures/sword_on_floor.png"));
-			exit = ImageIO.read(new File("textures/exit.png"));
-			
-			heroWithEagle = ImageIO.read(new File("textures/hero_with_eagle.png"));
-			heroWithSword = ImageIO.read(new File("textures/hero_with_sword.png"));
-			heroWithSwordAndEagle = ImageIO.read(new File("textures/hero_with_sword_and_eagle.png"));
-			
-			eagleWithSword = ImageIO.read(new File("textures/eagle_on_floor_with_sword.png"));
-			eagleUponDragon = ImageIO.read(new File("textures/eagle_upon_dragon.png"));
-			eagleUponWall = ImageIO.read(new File("textures/eagle_upon_wall.png"));
-			eagleUponWallWithSword = ImageIO.read(new File("textures/eagle_upon_wall_with_sword.png"));
-			eagleUponDragonWithSword = ImageIO.read(new File("textures/eagle_upon_dragon_with_sword.png"));
-			eagleUponDragonWithSwordAsleep = ImageIO.read(new File("textures/eagle_upon_dragon_with_sword_asleep.png"));
-			
-			dragonAsleep = ImageIO.read(new File("textures/dragon_asleep.png"));
-			dragonWithSword = ImageIO.read(new File("textures/dragon_with_sword.png"));
-			dragonWithSwordAsleep = ImageIO.read(new File("textures/dragon_with_sword_asleep.png"));
-			
-		} catch (IOException e) {
-			
-			e.printStackTrace();
-			
-			System.exit(0);
-		}
-		
+		game.initBufferedImages();
 	}
 
 	@Override
 	public void keyPressed(KeyEvent e) {
-		this.keyCode = e.getKeyCode();
+		setKeyCode(e.getKeyCode());
 	}
 
 	@Override
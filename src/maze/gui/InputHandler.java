@@ -1,103 +1,129 @@
 package maze.gui;
 
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * Class that represents all "input handler" type objects.
- * 
- * An input handler reads the keyCode variable from a "window" type object (and/or child objects)
- *   and saves that keyCode into an Array, reseting the "window" keyCode afterwards.
- *   Any kind of instance of this type is running in a separated thread, therefore it
- *   doens't "freeze" the main program while it waits for keyCode values.
+ *
+ * An input handler keeps, in a queue, the keyCodes of a "window" type object
+ *   (and/or child objects): the window hands every keyCode to its handler as
+ *   soon as it is set (see Window.setKeyCode()), on the Swing thread.
+ *   The program waits for the next command with getNextCommand(), which
+ *   blocks (without using the CPU) until there is one, or returns INTERRUPTED
+ *   if the thread is interrupted (the program is stopping): the loops that
+ *   wait for commands end then, instead of asking again.
+ *   Every command keeps the time it was added at (getCommandTime()), so the
+ *   time it takes to be seen on the screen can be measured (see InputLatency).
  */
-public class InputHandler implements Runnable {
-	
+public class InputHandler {
+
+	// Given by getNextCommand() when the wait is interrupted.
+	public static final int INTERRUPTED = -1;
+
 	protected Window window;
-	protected boolean terminate;
+	protected volatile boolean terminate;
+
+	protected BlockingQueue<Command> commands = new LinkedBlockingQueue<Command>();
+
+	// Command given by getNextCommand() and not yet removed.
+	private Command next;
 
-	protected CopyOnWriteArrayList<Integer> commands;
-	
 	/**
 	 * Defaut Constructor.
 	 */
 	public InputHandler() {
 	}
-	
+
 	/**
 	 * Constructor.
-	 *   Assigns a window to this handler.
-	 * 
+	 *   Assigns a window to this handler (replacing its previous handler, if any).
+	 *
 	 * @param w : window to be linked to this handler
 	 */
 	public InputHandler(Window w) {
 		this.window = w;
 		this.terminate = false;
-		this.commands = new CopyOnWriteArrayList<Integer>();
+
+		w.setInputHandler(this);
 	}
 
 	/**
-	 * Waits for a keyCode from the window's KeyListener to be different from 0.
-	 *   When it is, its saved to the array [commands].
+	 * Gets the first command of the queue, waiting for one if the queue is empty.
+	 *   The command stays in the queue until removeCommand() is called.
+	 *
+	 * @return First element of the queue. If the wait is interrupted, returns INTERRUPTED
+	 *   (and the thread stays interrupted).
 	 */
-	@Override
-	public void run() {
-
-		while(!terminate) {
+	public Integer getNextCommand() {
 
+		if(next == null) {
 			try {
-				if(window.getKeyCode() != 0) {
-					commands.add(window.getKeyCode());
-					window.resetKeyCode();
-				}
-				Thread.sleep(6);
+				next = commands.take();
 			} catch (InterruptedException e) {
-				e.printStackTrace();
+				Thread.currentThread().interrupt();
+				return INTERRUPTED;
 			}
-
 		}
 
+		return next.keyCode;
 	}
-	
-	/** 
-	 * Gets the first element of the array commands.
-	 * 
-	 * @return First element of the queue. If the queue is empty, returns -1.
+
+	/**
+	 * Gets the time the command given by getNextCommand() was added at.
+	 *
+	 * @return System.nanoTime() when the command was added, 0 if there is no command
 	 */
-	public Integer getNextCommand() {
-		if(!commands.isEmpty()) {
-			int i = commands.get(0);
-			return i;
-		} else {
-			return -1;
-		}
+	public long getCommandTime() {
+		return (next == null) ? 0 : next.time;
 	}
-	
+
 	/**
 	 * Removes the first command of the queue.
 	 */
 	public void removeCommand() {
-		if(!commands.isEmpty()) {
-			commands.remove(0);
+		if(next != null) {
+			next = null;
+		}
+		else {
+			commands.poll();
 		}
 	}
-	
+
 	/**
-	 * Adds the given value to the array [commands].
-	 * 
+	 * Adds the given value to the queue.
+	 *   Ignored once the handler is terminated.
+	 *
 	 * @param keyCode : value to set
 	 */
 	public void addCommand(int keyCode) {
-		commands.add(keyCode);
+		if(!terminate) {
+			commands.offer(new Command(keyCode, System.nanoTime()));
+		}
 	}
 
 	/**
 	 * Sets the value of the parameter [terminate].
-	 * 
+	 *   A terminated handler doesn't take any more commands.
+	 *
 	 * @param terminate : value to set
 	 */
 	public void setTerminate(boolean terminate) {
 		this.terminate = terminate;
 	}
 
+	/**
+	 * A keyCode and the time it was added at.
+	 */
+	protected static class Command {
+
+		private final int keyCode;
+		private final long time;
+
+		private Command(int keyCode, long time) {
+			this.keyCode = keyCode;
+			this.time = time;
+		}
+	}
 
 }
@@ -64,21 +64,21 @@ public class MenuWindow extends Window {
 		JButton btnPlay = new JButton("Play");
 		btnPlay.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent arg0) {
-				keyCode = 1;
+				setKeyCode(1);
 			}
 		});
 		
 		JButton btnOptions = new JButton("Editor");
 		btnOptions.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
-				keyCode = 2;
+				setKeyCode(2);
 			}
 		});
 		
 		JButton btnCredits = new JButton("Credits");
 		btnCredits.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
-				keyCode = 3;
+				setKeyCode(3);
 				
 			}
 		});
@@ -86,7 +86,7 @@ public class MenuWindow extends Window {
 		JButton btnQuit = new JButton("Quit");
 		btnQuit.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
-				keyCode = 4;
+				setKeyCode(4);
 			}
 		});
 		
@@ -0,0 +1,282 @@
+package maze.gui;
+
+import maze.logic.BoardCompositor;
+import maze.logic.Dragon;
+import maze.logic.Eagle;
+import maze.logic.Element;
+import maze.logic.GameLogic;
+import maze.logic.Hero;
+
+/**
+ * Class that picks the picture (see TextureCache) of each tile of the board.
+ *
+ * What is seen on a tile is encoded in a small code:
+ *   - bits 4..6: what is on top (TILE, EXIT, SWORD, EAGLE, HERO or DRAGON);
+ *   - bit 0: the tile is a wall;
+ *   - bit 1: it has the sword;
+ *   - bit 2: it is asleep;
+ *   - bit 3: with the eagle (hero with the eagle, eagle upon a dragon).
+ *   and the picture of each code is in a table, built once.
+ *
+ * The codes of the tiles are kept in an array, worked out on the game thread
+ *   once per turn, after the board (update()): all of them, or only those of
+ *   the tiles the turn changed. Painting (on the event dispatch thread) only
+ *   reads that array, never the game.
+ *   The hero, eagle, sword and exit are looked at once per update, so the
+ *   code of a tile only takes the dragon at that tile (from the occupancy
+ *   grid) and a few comparisons.
+ */
+public class SpriteTable {
+
+	public static final int WALL = 1;
+	public static final int ARMED = 2;
+	public static final int ASLEEP = 4;
+	public static final int WITH_EAGLE = 8;
+
+	public static final int TILE = 0 << 4;
+	public static final int EXIT = 1 << 4;
+	public static final int SWORD = 2 << 4;
+	public static final int EAGLE = 3 << 4;
+	public static final int HERO = 4 << 4;
+	public static final int DRAGON = 5 << 4;
+
+	private static final int TEXTURES[] = new int[6 << 4];
+
+	static {
+		for(int code = 0; code < TEXTURES.length; code++) {
+			TEXTURES[code] = pick(code);
+		}
+	}
+
+	private GameLogic game;
+
+	// Code of every tile, [x][y] (read by the painting, null until the first update).
+	private volatile byte codes[][];
+
+	// Tiles (x * size + y, -1 if none) and codes of the hero, the eagle, the sword and the exit.
+	private int size;
+	private int heroCell, eagleCell, swordCell, exitCell;
+	private int heroCode, eagleCode;
+	private Eagle eagle;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param game : current game
+	 */
+	public SpriteTable(GameLogic game) {
+		this.game = game;
+	}
+
+	/**
+	 * Works out the codes of all the tiles.
+	 *   Called on the game thread, once the board is set.
+	 */
+	public void update() {
+
+		look();
+
+		byte all[][] = new byte[size][size];
+		for(int x = 0; x < size; x++) {
+			for(int y = 0; y < size; y++) {
+				all[x][y] = (byte) compute(x, y);
+			}
+		}
+
+		codes = all;
+	}
+
+	/**
+	 * Works out the codes of the tiles changed by the last turn: the cells of
+	 *   the board that changed and the tiles the hero and the eagle were on and
+	 *   are on (their pictures depend on more than the board, e.g. the eagle
+	 *   upon a dragon). All of them if the board was composed again.
+	 *   Called on the game thread, once the board is set.
+	 *
+	 * @param changes : changes of the board (GameLogic.getBoardChanges())
+	 * @return the tiles whose code was worked out (x * size + y); null if all of them
+	 */
+	public int[] update(BoardCompositor changes) {
+
+		if(changes == null || changes.isFullRedraw() || codes == null
+				|| codes.length != game.getMaze().getSize()) {
+			update();
+			return null;
+		}
+
+		look();
+
+		int count = changes.getChangeCount();
+		int tiles[] = new int[count + 4];
+
+		for(int i = 0; i < count; i++) {
+			tiles[i] = changes.getChangedX(i) * size + changes.getChangedY(i);
+		}
+
+		Hero hero = game.getHero();
+		tiles[count] = hero.getOldX() * size + hero.getOldY();
+		tiles[count + 1] = cell(hero);
+		tiles[count + 2] = eagle.getOldX() * size + eagle.getOldY();
+		tiles[count + 3] = cell(eagle);
+
+		byte current[][] = codes;
+		for(int tile: tiles) {
+			int x = tile / size, y = tile % size;
+			if(x >= 0 && y >= 0 && x < size && y < size) {
+				current[x][y] = (byte) compute(x, y);
+			}
+		}
+
+		return tiles;
+	}
+
+	/**
+	 * Gets the number of rows (and columns) of the codes.
+	 *
+	 * @return size of the maze of the last update, 0 if none
+	 */
+	public int getSize() {
+		byte current[][] = codes;
+		return (current == null) ? 0 : current.length;
+	}
+
+	/**
+	 * Gets the codes of all the tiles, [x][y], as of the last update
+	 *   (the tiles changed by later turns are set in the same array).
+	 *
+	 * @return the codes, null if there was no update yet
+	 */
+	public byte[][] getCodes() {
+		return codes;
+	}
+
+	/**
+	 * Looks at the hero, the eagle, the sword and the exit.
+	 */
+	private void look() {
+
+		size = game.getMaze().getSize();
+
+		Hero hero = game.getHero();
+		eagle = game.getEagle();
+
+		heroCell = hero.isAlive() ? cell(hero) : -1;
+		heroCode = HERO | (hero.hasSword() ? ARMED : 0) | (hero.hasEagle() ? WITH_EAGLE : 0);
+
+		eagleCell = (eagle.isAlive() && !hero.hasEagle()) ? cell(eagle) : -1;
+		eagleCode = EAGLE | (eagle.hasSword() ? ARMED : 0);
+
+		swordCell = (!hero.hasSword() && !eagle.hasSword()) ? cell(game.getSword()) : -1;
+		exitCell = cell(game.getMaze().getExit());
+	}
+
+	/**
+	 * Gets the code of what is seen on the tile (x, y), as of the last update.
+	 *
+	 * @param x : X coordinate
+	 * @param y : Y coordinate
+	 * @return code of the tile
+	 */
+	public int codeAt(int x, int y) {
+		return codes[x][y];
+	}
+
+	/**
+	 * Works out the code of what is seen on the tile (x, y).
+	 */
+	private int compute(int x, int y) {
+
+		int wall = game.getMaze().isWall(x, y) ? WALL : 0;
+
+		Dragon dragon = game.dragonAt(x, y);
+		if(dragon != null) {
+			return DRAGON | wall
+					| (dragon.hasSword() ? ARMED : 0)
+					| (dragon.isAwake() ? 0 : ASLEEP)
+					| (eagle.isAt(x, y) ? WITH_EAGLE : 0);
+		}
+
+		int cell = x * size + y;
+
+		if(cell == heroCell) {
+			return heroCode | wall;
+		}
+		if(cell == eagleCell) {
+			return eagleCode | wall;
+		}
+		if(cell == swordCell) {
+			return SWORD | wall;
+		}
+		if(cell == exitCell) {
+			return EXIT | wall;
+		}
+
+		return TILE | wall;
+	}
+
+	/**
+	 * Gets the picture of the tile (x, y).
+	 *
+	 * @param x : X coordinate
+	 * @param y : Y coordinate
+	 * @return the picture (see TextureCache)
+	 */
+	public int textureAt(int x, int y) {
+		return TEXTURES[codeAt(x, y)];
+	}
+
+	/**
+	 * Gets the picture of a code.
+	 *
+	 * @param code : code of a tile
+	 * @return the picture (see TextureCache)
+	 */
+	public static int texture(int code) {
+		return TEXTURES[code];
+	}
+
+	private int cell(Element element) {
+		return (element == null) ? -1 : element.getX() * size + element.getY();
+	}
+
+	/**
+	 * Picks the picture of a code (used to build the table).
+	 */
+	private static int pick(int code) {
+
+		boolean wall = (code & WALL) != 0;
+		boolean armed = (code & ARMED) != 0;
+		boolean asleep = (code & ASLEEP) != 0;
+		boolean withEagle = (code & WITH_EAGLE) != 0;
+
+		switch(code & ~15) {
+		case DRAGON:
+			if(withEagle) {
+				if(armed) {
+					return asleep ? TextureCache.EAGLE_UPON_DRAGON_WITH_SWORD_ASLEEP : TextureCache.EAGLE_UPON_DRAGON_WITH_SWORD;
+				}
+				return asleep ? TextureCache.EAGLE_UPON_DRAGON_ASLEEP : TextureCache.EAGLE_UPON_DRAGON;
+			}
+			if(armed) {
+				return asleep ? TextureCache.DRAGON_WITH_SWORD_ASLEEP : TextureCache.DRAGON_WITH_SWORD;
+			}
+			return asleep ? TextureCache.DRAGON_ASLEEP : TextureCache.DRAGON;
+		case HERO:
+			if(withEagle) {
+				return armed ? TextureCache.HERO_WITH_SWORD_AND_EAGLE : TextureCache.HERO_WITH_EAGLE;
+			}
+			return armed ? TextureCache.HERO_WITH_SWORD : TextureCache.HERO;
+		case EAGLE:
+			if(armed) {
+				return wall ? TextureCache.EAGLE_UPON_WALL_WITH_SWORD : TextureCache.EAGLE_WITH_SWORD;
+			}
+			return wall ? TextureCache.EAGLE_UPON_WALL : TextureCache.EAGLE;
+		case SWORD:
+			return TextureCache.SWORD;
+		case EXIT:
+			return TextureCache.EXIT;
+		default:
+			return wall ? TextureCache.WALL : TextureCache.FLOOR;
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package maze.gui;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Class that keeps the pictures (textures) of the game, already scaled
+ *   to the size of the tiles they are drawn on.
+ *
+ * The pictures are loaded once (load()) and scaled the first time they are
+ *   asked for at a given size, into images compatible with the screen, so
+ *   painting a tile is a straight copy instead of scaling the picture again.
+ *   Only the last few sizes asked for are kept (a board whose size isn't a
+ *   multiple of the number of tiles uses up to four); invalidate() forgets
+ *   them all, when the window or the board changes size.
+ */
+public class TextureCache {
+
+	public static final int WALL = 0;
+	public static final int FLOOR = 1;
+	public static final int EXIT = 2;
+	public static final int SWORD = 3;
+	public static final int HERO = 4;
+	public static final int HERO_WITH_EAGLE = 5;
+	public static final int HERO_WITH_SWORD = 6;
+	public static final int HERO_WITH_SWORD_AND_EAGLE = 7;
+	public static final int EAGLE = 8;
+	public static final int EAGLE_WITH_SWORD = 9;
+	public static final int EAGLE_UPON_WALL = 10;
+	public static final int EAGLE_UPON_WALL_WITH_SWORD = 11;
+	public static final int EAGLE_UPON_DRAGON = 12;
+	public static final int EAGLE_UPON_DRAGON_ASLEEP = 13;
+	public static final int EAGLE_UPON_DRAGON_WITH_SWORD = 14;
+	public static final int EAGLE_UPON_DRAGON_WITH_SWORD_ASLEEP = 15;
+	public static final int DRAGON = 16;
+	public static final int DRAGON_ASLEEP = 17;
+	public static final int DRAGON_WITH_SWORD = 18;
+	public static final int DRAGON_WITH_SWORD_ASLEEP = 19;
+
+	private static final String FILES[] = {
+		"wall", "floor", "exit", "sword_on_floor",
+		"hero_on_floor", "hero_with_eagle", "hero_with_sword", "hero_with_sword_and_eagle",
+		"eagle_on_floor", "eagle_on_floor_with_sword", "eagle_upon_wall", "eagle_upon_wall_with_sword",
+		"eagle_upon_dragon", "eagle_upon_dragon_asleep", "eagle_upon_dragon_with_sword", "eagle_upon_dragon_with_sword_asleep",
+		"dragon_on_floor", "dragon_asleep", "dragon_with_sword", "dragon_with_sword_asleep"
+	};
+
+	// Sizes (width, height) kept at most.
+	private static final int SIZES = 8;
+
+	private BufferedImage sources[] = new BufferedImage[FILES.length];
+
+	// Scaled pictures of each size, the least recently used size first.
+	private Map<Long, Image[]> scaled = new LinkedHashMap<Long, Image[]>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Image[]> eldest) {
+			return size() > SIZES;
+		}
+	};
+
+	// Last size asked for (most tiles have the same size).
+	private long lastKey = -1;
+	private Image lastImages[];
+
+	/**
+	 * Loads to memory all the pictures (from the "textures" folder).
+	 *
+	 * @throws IOException if a picture can't be read
+	 */
+	public void load() throws IOException {
+
+		for(int i = 0; i < FILES.length; i++) {
+			sources[i] = ImageIO.read(new File("textures/" + FILES[i] + ".png"));
+		}
+
+		invalidate();
+	}
+
+	/**
+	 * Gets a picture scaled to a size.
+	 *
+	 * @param texture : picture (WALL, FLOOR, HERO, ...)
+	 * @param width : width of the tile
+	 * @param height : height of the tile
+	 * @return the scaled picture, or null if it isn't loaded or the size is empty
+	 */
+	public Image get(int texture, int width, int height) {
+
+		if(width <= 0 || height <= 0 || sources[texture] == null) {
+			return null;
+		}
+
+		long key = ((long) width << 32) | height;
+
+		if(key != lastKey) {
+
+			lastImages = scaled.get(key);
+			if(lastImages == null) {
+				lastImages = new Image[FILES.length];
+				scaled.put(key, lastImages);
+			}
+
+			lastKey = key;
+		}
+
+		if(lastImages[texture] == null) {
+			lastImages[texture] = scale(sources[texture], width, height);
+		}
+
+		return lastImages[texture];
+	}
+
+	/**
+	 * Forgets all the scaled pictures.
+	 */
+	public void invalidate() {
+		scaled.clear();
+		lastKey = -1;
+		lastImages = null;
+	}
+
+	private Image scale(BufferedImage source, int width, int height) {
+
+		BufferedImage image;
+
+		if(GraphicsEnvironment.isHeadless()) {
+			image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		}
+		else {
+			image = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+					.getDefaultConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+		}
+
+		Graphics2D g = image.createGraphics();
+		g.drawImage(source, 0, 0, width, height, null);
+		g.dispose();
+
+		return image;
+	}
+}
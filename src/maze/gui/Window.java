@@ -7,13 +7,16 @@ import javax.swing.JFrame;
  * 
  * A generic window class, that extends JFrame.
  *  Every child object as a keyCode variable, that it inherits from
- *  this class. Important for the input handlers.
+ *  this class. Important for the input handlers: every keyCode set
+ *  (setKeyCode()) is handed to the handler of the window right away.
  */
 @SuppressWarnings("serial")
 public class Window extends JFrame {
 	
 	protected int keyCode;
 	
+	private transient InputHandler inputHandler;
+	
 	/**
 	 * Default Constructor.
 	 */
@@ -48,6 +51,19 @@ public class Window extends JFrame {
 	 */
 	public void setKeyCode(int keyCode) {
 		this.keyCode = keyCode;
+		
+		if(keyCode != 0 && inputHandler != null) {
+			inputHandler.addCommand(keyCode);
+		}
+	}
+	
+	/**
+	 * Sets the handler that receives the keyCodes of this window.
+	 * 
+	 * @param inputHandler : handler to set
+	 */
+	public void setInputHandler(InputHandler inputHandler) {
+		this.inputHandler = inputHandler;
 	}
 
 	/**
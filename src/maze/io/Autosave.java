@@ -0,0 +1,393 @@
+package maze.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import maze.logic.GameLogic;
+
+/**
+ * Class that keeps a game on the disk as it is played, so it can be resumed
+ *   after the program stops (even if it crashes).
+ *
+ * The game is kept in two files:
+ *   - a checkpoint (name + ".ckpt"): the whole game, saved with GameIO;
+ *   - a journal (name + ".journal", see CommandJournal): every command played
+ *     since the checkpoint, one byte each, appended before it is played.
+ *   Every CHECKPOINT_EVERY commands a new checkpoint is saved and the journal
+ *   starts again, so a turn only costs a byte written to the journal.
+ *
+ * The checkpoints of a game being played are saved in the background (see
+ *   BackgroundSaver), to name + ".next.ckpt", while the commands go on being
+ *   appended to the journal, and kept aside too. Once the new checkpoint is
+ *   on the disk (on the thread of the saver), its journal is written, with
+ *   the commands kept aside, to name + ".next.journal", and both are renamed
+ *   over the last checkpoint and journal, which are whole until then.
+ *   If the program stops between the two renames, the next journal is found
+ *   (and renamed) when the game is resumed.
+ *
+ * To resume, the checkpoint is loaded and the commands of its journal are
+ *   played again (GameLogic.step()), which gives the same game, since a turn
+ *   only depends on the game and the command.
+ *
+ * A checkpoint is written whole before it replaces the last one (see
+ *   GameIO.writeFile()), and the journal knows the checkpoint it follows: a
+ *   journal is never replayed upon a checkpoint other than its own.
+ *
+ * If a command or a checkpoint can't be written, the game isn't whole on
+ *   the disk any more (see getFailure()) until a new checkpoint is: the game
+ *   tries one at its next turn, and then every CHECKPOINT_EVERY turns while
+ *   they fail (see isRetryDue()).
+ */
+public class Autosave {
+
+	// Commands played between two checkpoints.
+	public static final int CHECKPOINT_EVERY = 256;
+
+	private GameIO gameIO = new GameIO();
+	private BackgroundSaver saver = new BackgroundSaver();
+
+	private String name;
+	private String checkpoint, nextCheckpoint;
+	private String nextJournal;
+
+	// Journal of the checkpoint on the disk.
+	private CommandJournal journal;
+
+	// Commands appended to the journal since the last checkpoint was asked for.
+	private int count;
+
+	// Commands played since the checkpoint being saved (null if none is).
+	private byte pending[];
+	private int pendingCount;
+
+	// Why the game isn't whole on the disk, null if it is.
+	private volatile IOException failure;
+
+	// Turns before a new checkpoint is tried, once one has failed.
+	private int retryIn;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param fileName : name of the files of the game (without extension)
+	 */
+	public Autosave(String fileName) {
+		this.name = fileName;
+		this.checkpoint = fileName + ".ckpt";
+		this.nextCheckpoint = fileName + ".next.ckpt";
+		this.nextJournal = fileName + ".next.journal";
+		this.journal = new CommandJournal(fileName + ".journal");
+	}
+
+	/**
+	 * Checks if there is a game to resume.
+	 *
+	 * @return true if there is a checkpoint
+	 */
+	public boolean exists() {
+		return Files.exists(Paths.get(checkpoint)) || Files.exists(Paths.get(nextJournal));
+	}
+
+	/**
+	 * Loads the game kept on the disk into a game: the checkpoint, and then
+	 *   the commands of the journal (the game mustn't append them again, that
+	 *   is, this Autosave isn't to be given to it until this method returns).
+	 *   Commands played afterwards are appended to the same journal.
+	 *
+	 * @param game : game to be set
+	 * @return number of commands played again, -1 if there is no game to resume
+	 * @throws IOException if the files can't be read
+	 */
+	public int resume(GameLogic game) throws IOException {
+
+		recover();
+
+		Path path = Paths.get(checkpoint);
+		if(!Files.exists(path)) {
+			return -1;
+		}
+
+		if(gameIO.loadGame(game, checkpoint) != 0) {
+			throw new IOException("Can't load the checkpoint " + checkpoint);
+		}
+
+		long length = Files.size(path);
+		int crc = crc(path);
+
+		byte commands[] = journal.open(length, crc);
+
+		if(commands == null) {
+			journal.create(length, crc);
+			commands = new byte[0];
+		}
+
+		for(byte command: commands) {
+			if(game.step(command) != GameLogic.PLAYING) {
+				break;
+			}
+		}
+
+		count = commands.length;
+
+		return commands.length;
+	}
+
+	/**
+	 * Saves a checkpoint of a game and starts an empty journal after it,
+	 *   before returning (eg: a new game, or one just loaded).
+	 *
+	 * @param game : the GameLogic instance
+	 * @throws IOException if the files can't be written
+	 */
+	public void checkpoint(GameLogic game) throws IOException {
+
+		// A checkpoint still being saved would be renamed over this one.
+		saver.finish();
+
+		synchronized(this) {
+			try {
+				gameIO.writeFile(game, checkpoint);
+
+				Path path = Paths.get(checkpoint);
+				journal.create(Files.size(path), crc(path));
+			}
+			catch(IOException e) {
+				failure = e;
+				retryIn = CHECKPOINT_EVERY;
+				throw e;
+			}
+
+			count = 0;
+			failure = null;
+		}
+	}
+
+	/**
+	 * Gets why the game isn't whole on the disk: the last command or
+	 *   checkpoint that couldn't be written since the last checkpoint was.
+	 *
+	 * @return the failure, null if the game can be resumed as it is
+	 */
+	public IOException getFailure() {
+		return failure;
+	}
+
+	/**
+	 * Checks if a new checkpoint is to be saved (checkpoint()), to have the
+	 *   game whole on the disk again after a failure: at the next turn, and
+	 *   then every CHECKPOINT_EVERY turns while they fail.
+	 *   Called once per turn.
+	 *
+	 * @return true if a checkpoint is to be tried
+	 */
+	public synchronized boolean isRetryDue() {
+
+		if(failure == null) {
+			return false;
+		}
+
+		if(retryIn > 0) {
+			retryIn--;
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Appends a command, before it is played, to the journal
+	 *   (asking for a checkpoint to be saved first if CHECKPOINT_EVERY commands
+	 *   were played since the last one, see startCheckpoint()).
+	 *
+	 * @param game : the GameLogic instance, as it is before the command
+	 * @param command : hero command (0,1,2,3 - UP,RIGHT,DOWN,LEFT; 4 - EAGLE)
+	 * @throws IOException if the files can't be written
+	 */
+	public synchronized void record(GameLogic game, int command) throws IOException {
+
+		if(count >= CHECKPOINT_EVERY && pending == null) {
+			startCheckpoint(game);
+		}
+
+		// No checkpoint was ever written (see getFailure()): nothing to follow.
+		if(!journal.isOpen()) {
+			return;
+		}
+
+		try {
+			journal.append(command);
+		}
+		catch(IOException e) {
+			failure = e;
+			throw e;
+		}
+		count++;
+
+		if(pending != null) {
+			if(pendingCount == pending.length) {
+				pending = Arrays.copyOf(pending, 2 * pending.length);
+			}
+			pending[pendingCount++] = (byte) command;
+		}
+	}
+
+	/**
+	 * Forces the journal to the disk and closes it (the game can be resumed),
+	 *   once the checkpoint being saved, if any, is on the disk.
+	 *
+	 * @throws IOException if the journal can't be written
+	 */
+	public void close() throws IOException {
+
+		saver.finish();
+
+		synchronized(this) {
+			journal.close();
+		}
+	}
+
+	/**
+	 * Deletes the files of the game (eg: the game is over).
+	 *
+	 * @throws IOException if the files can't be deleted
+	 */
+	public void discard() throws IOException {
+
+		saver.finish();
+
+		synchronized(this) {
+			try {
+				journal.delete();
+			}
+			finally {
+				Files.deleteIfExists(Paths.get(checkpoint));
+				Files.deleteIfExists(Paths.get(nextCheckpoint));
+				Files.deleteIfExists(Paths.get(nextJournal));
+			}
+		}
+	}
+
+	/**
+	 * Asks for a checkpoint of a game to be saved in the background. Until it
+	 *   is on the disk, the commands go on being appended to the journal of the
+	 *   last one, and are kept aside for the journal of the new one.
+	 */
+	private void startCheckpoint(GameLogic game) {
+
+		pending = new byte[64];
+		pendingCount = 0;
+		count = 0;
+
+		saver.save(game, name + ".next", ".ckpt", new SaveListener() {
+			public void saved(String fileName) {
+				try {
+					switchJournal();
+				} catch (IOException e) {
+					failed(fileName, e);
+				}
+			}
+
+			public void failed(String fileName, IOException e) {
+				e.printStackTrace();
+				synchronized(Autosave.this) {
+					pending = null;
+					failure = e;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Writes the journal of the new checkpoint (the commands kept aside), and
+	 *   renames both over the last checkpoint and journal.
+	 *   Called on the thread of the saver, once the new checkpoint is on the disk.
+	 */
+	private void switchJournal() throws IOException {
+
+		Path path = Paths.get(nextCheckpoint);
+		long length = Files.size(path);
+		int crc = crc(path);
+
+		// The commands kept aside so far are written (and forced) without
+		// keeping the game waiting; those played meanwhile are appended after.
+		byte first[];
+		synchronized(this) {
+			first = Arrays.copyOf(pending, pendingCount);
+		}
+
+		CommandJournal next = new CommandJournal(nextJournal);
+		next.create(length, crc, first, first.length);
+
+		CommandJournal last;
+		synchronized(this) {
+
+			for(int i = first.length; i < pendingCount; i++) {
+				next.append(pending[i]);
+			}
+
+			// Checkpoint first: if the program stops before the journal is
+			// renamed too, recover() finds it.
+			CommandJournal.move(path, Paths.get(checkpoint));
+			next.moveTo(journal.getFileName());
+
+			last = journal;
+			journal = next;
+			pending = null;
+		}
+
+		last.close();
+	}
+
+	/**
+	 * Ends a switch of journal cut short (the program stopped between the
+	 *   renames, see switchJournal()), and deletes what is left of a checkpoint
+	 *   whose journal wasn't written.
+	 */
+	private void recover() throws IOException {
+
+		CommandJournal next = new CommandJournal(nextJournal);
+
+		Path path = Paths.get(nextCheckpoint);
+		if(Files.exists(path) && next.follows(Files.size(path), crc(path))) {
+			CommandJournal.move(path, Paths.get(checkpoint));
+		}
+
+		path = Paths.get(checkpoint);
+		if(Files.exists(path) && next.follows(Files.size(path), crc(path))) {
+			next.moveTo(journal.getFileName());
+		}
+
+		Files.deleteIfExists(Paths.get(nextCheckpoint));
+		Files.deleteIfExists(Paths.get(nextJournal));
+	}
+
+	/**
+	 * Gets the CRC-32 of a file.
+	 */
+	private static int crc(Path path) throws IOException {
+
+		CRC32 crc = new CRC32();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+
+		FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			while(in.read(buffer) >= 0) {
+				buffer.flip();
+				crc.update(buffer);
+				buffer.clear();
+			}
+		}
+		finally {
+			in.close();
+		}
+
+		return (int) crc.getValue();
+	}
+}
@@ -0,0 +1,101 @@
+package maze.io;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import maze.logic.GameLogic;
+
+/**
+ * Class that saves games without making the game wait for the disk.
+ *
+ * save() only takes a copy of the game (GameLogic.snapshot()), which is
+ *   then written, forced to the disk and renamed over the file (see
+ *   GameIO.writeFile()) on the thread of the saver, while the game goes on.
+ *   The listener is told how it went (an unexpected exception of the writer
+ *   is told as a failure too, with it as the cause).
+ *
+ * The saves are written one after the other, in the order they were asked
+ *   for, so the file always ends up with the last one.
+ *
+ * @see SaveListener
+ */
+public class BackgroundSaver {
+
+	private ExecutorService executor;
+
+	private GameIO gameIO = new GameIO();
+
+	/**
+	 * Saves a game in the background.
+	 *
+	 * @param game : the GameLogic instance (only used until this method returns)
+	 * @param fileName : the filename of the saved file
+	 * @param extension : extension added to the filename, if it hasn't it (eg: ".sav")
+	 * @param listener : told when the game is saved (or not), may be null
+	 * @return the pending save (done when the file is written)
+	 */
+	public synchronized Future<?> save(GameLogic game, String fileName, String extension, final SaveListener listener) {
+
+		final GameLogic snapshot = game.snapshot();
+		final String file = fileName.contains(extension) ? fileName : fileName + extension;
+
+		if(executor == null) {
+			executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable task) {
+					Thread thread = new Thread(task, "saver");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+
+		return executor.submit(new Runnable() {
+			public void run() {
+				try {
+					gameIO.writeFile(snapshot, file);
+				}
+				catch(IOException e) {
+					if(listener != null) {
+						listener.failed(file, e);
+					}
+					return;
+				}
+				catch(RuntimeException e) {
+					if(listener != null) {
+						listener.failed(file, new IOException("Can't save " + file, e));
+					}
+					return;
+				}
+
+				if(listener != null) {
+					listener.saved(file);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Waits for the pending saves to be written, and shuts down the thread of the saver.
+	 *   A later save() starts it again.
+	 */
+	public synchronized void finish() {
+
+		if(executor == null) {
+			return;
+		}
+
+		executor.shutdown();
+
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		executor = null;
+	}
+}
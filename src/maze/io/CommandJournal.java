@@ -0,0 +1,365 @@
+package maze.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Class that keeps, in a file, the commands played since a checkpoint
+ *   (a game saved with GameIO), one byte per command.
+ *
+ * The file starts with a header (MAGIC, VERSION, and the length and CRC-32
+ *   of the checkpoint it follows), so a journal is never replayed upon a
+ *   checkpoint other than its own. Then come the commands, in order, each
+ *   one a byte with MARK in the high bits (so that the zeros a crash may leave
+ *   at the end of a file aren't taken for commands).
+ *
+ * Every command is written to the file as soon as it is appended, so it
+ *   survives the program stopping; the file is forced to the disk every
+ *   FORCE_EVERY commands, on a thread of its own so the game doesn't wait
+ *   for the disk (and when closed), so a system crash loses at most the
+ *   last commands (2 * FORCE_EVERY, if the disk is slower than the game).
+ *
+ * @see Autosave
+ */
+public class CommandJournal {
+
+	// "MZJN"
+	public static final int MAGIC = 0x4D5A4A4E;
+	public static final int VERSION = 1;
+
+	// Commands appended between two forces to the disk.
+	public static final int FORCE_EVERY = 32;
+
+	private static final int HEADER = 18;
+
+	private static final int MARK = 0xA0;
+
+	private Path path;
+
+	private FileChannel channel;
+
+	private ByteBuffer record = ByteBuffer.allocate(1);
+	private int unforced;
+
+	// A force to the disk is on its way (see forceLater()).
+	private AtomicBoolean forcing = new AtomicBoolean();
+
+	// Thread the journals are forced to the disk on.
+	private static ExecutorService forcer;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param fileName : the filename of the journal
+	 */
+	public CommandJournal(String fileName) {
+		this.path = Paths.get(fileName).toAbsolutePath();
+	}
+
+	/**
+	 * Gets the filename of the journal.
+	 *
+	 * @return the filename
+	 */
+	public String getFileName() {
+		return path.toString();
+	}
+
+	/**
+	 * Starts an empty journal (replacing the file, if any), following a checkpoint.
+	 *   The journal is kept open to append commands to.
+	 *
+	 * @param checkpointLength : length of the checkpoint file
+	 * @param checkpointCrc : CRC-32 of the checkpoint file
+	 * @throws IOException if the file can't be written
+	 */
+	public void create(long checkpointLength, int checkpointCrc) throws IOException {
+		create(checkpointLength, checkpointCrc, null, 0);
+	}
+
+	/**
+	 * Starts a journal (replacing the file, if any), following a checkpoint,
+	 *   with the first commands already in it. The journal is kept open to
+	 *   append commands to.
+	 *
+	 * @param checkpointLength : length of the checkpoint file
+	 * @param checkpointCrc : CRC-32 of the checkpoint file
+	 * @param commands : first commands (0 to 15 each), may be null
+	 * @param count : number of first commands
+	 * @throws IOException if the file can't be written
+	 */
+	public void create(long checkpointLength, int checkpointCrc, byte commands[], int count) throws IOException {
+
+		close();
+
+		// The header is written aside and renamed over the old journal, so the
+		// old one stays whole until the new one is ready.
+		Path temp = Paths.get(path + ".tmp");
+
+		try {
+			FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE,
+					StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+			try {
+				ByteBuffer header = ByteBuffer.allocate(HEADER + count);
+				header.putInt(MAGIC);
+				header.putShort((short) VERSION);
+				header.putLong(checkpointLength);
+				header.putInt(checkpointCrc);
+				for(int i = 0; i < count; i++) {
+					header.put((byte) (MARK | (commands[i] & 0x0F)));
+				}
+				header.flip();
+
+				while(header.hasRemaining()) {
+					out.write(header);
+				}
+				out.force(true);
+			}
+			finally {
+				out.close();
+			}
+
+			move(temp, path);
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+
+		channel = FileChannel.open(path, StandardOpenOption.WRITE);
+		channel.position(HEADER + count);
+		unforced = 0;
+	}
+
+	/**
+	 * Checks if the journal follows a checkpoint (without opening it).
+	 *
+	 * @param checkpointLength : length of the checkpoint file
+	 * @param checkpointCrc : CRC-32 of the checkpoint file
+	 * @return true if there is a journal of that checkpoint
+	 * @throws IOException if the file can't be read
+	 */
+	public boolean follows(long checkpointLength, int checkpointCrc) throws IOException {
+
+		if(!Files.exists(path)) {
+			return false;
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER);
+
+		FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			while(header.hasRemaining() && in.read(header) >= 0) {
+			}
+		}
+		finally {
+			in.close();
+		}
+		header.flip();
+
+		return header.remaining() == HEADER && header.getInt() == MAGIC && header.getShort() == VERSION
+				&& header.getLong() == checkpointLength && header.getInt() == checkpointCrc;
+	}
+
+	/**
+	 * Renames the journal (replacing the file, if any), open or not.
+	 *
+	 * @param fileName : the new filename of the journal
+	 * @throws IOException if the file can't be renamed
+	 */
+	public void moveTo(String fileName) throws IOException {
+
+		Path target = Paths.get(fileName).toAbsolutePath();
+
+		move(path, target);
+		path = target;
+	}
+
+	/**
+	 * Renames a file over another one, at once where the system allows it.
+	 */
+	static void move(Path from, Path to) throws IOException {
+		try {
+			Files.move(from, to, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(AtomicMoveNotSupportedException e) {
+			Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Reads the commands of the journal, if it follows the given checkpoint.
+	 *   The journal is then kept open to append commands after them (anything
+	 *   after the last whole command, eg: left by a crash, is cut off).
+	 *
+	 * @param checkpointLength : length of the checkpoint file
+	 * @param checkpointCrc : CRC-32 of the checkpoint file
+	 * @return the commands, in order; null if there is no journal of that checkpoint
+	 * @throws IOException if the file can't be read
+	 */
+	public byte[] open(long checkpointLength, int checkpointCrc) throws IOException {
+
+		close();
+
+		if(!Files.exists(path)) {
+			return null;
+		}
+
+		FileChannel in = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		long size = in.size();
+		if(size < HEADER || size > Integer.MAX_VALUE) {
+			in.close();
+			return null;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate((int) size);
+		while(buffer.hasRemaining() && in.read(buffer) >= 0) {
+		}
+		buffer.flip();
+
+		if(buffer.remaining() < HEADER || buffer.getInt() != MAGIC || buffer.getShort() != VERSION
+				|| buffer.getLong() != checkpointLength || buffer.getInt() != checkpointCrc) {
+			in.close();
+			return null;
+		}
+
+		// Commands up to the first byte that isn't one.
+		byte commands[] = new byte[buffer.remaining()];
+		int count = 0;
+		while(buffer.hasRemaining()) {
+			int b = buffer.get() & 0xFF;
+			if((b & 0xF0) != MARK) {
+				break;
+			}
+			commands[count++] = (byte) (b & 0x0F);
+		}
+		commands = Arrays.copyOf(commands, count);
+
+		in.truncate(HEADER + count);
+		in.position(HEADER + count);
+
+		channel = in;
+		unforced = 0;
+
+		return commands;
+	}
+
+	/**
+	 * Checks if the journal is open (created or opened, and not closed).
+	 *
+	 * @return true if commands can be appended
+	 */
+	public boolean isOpen() {
+		return channel != null;
+	}
+
+	/**
+	 * Appends a command to the journal.
+	 *
+	 * @param command : command (0 to 15)
+	 * @throws IOException if the file can't be written
+	 */
+	public void append(int command) throws IOException {
+
+		record.clear();
+		record.put((byte) (MARK | (command & 0x0F)));
+		record.flip();
+
+		while(record.hasRemaining()) {
+			channel.write(record);
+		}
+
+		if(++unforced >= FORCE_EVERY) {
+			forceLater();
+			unforced = 0;
+		}
+	}
+
+	/**
+	 * Forces the journal to the disk on the thread of the forcer, unless a
+	 *   force is still on its way (the next one takes these commands too).
+	 */
+	private void forceLater() {
+
+		if(!forcing.compareAndSet(false, true)) {
+			return;
+		}
+
+		final FileChannel out = channel;
+
+		forcer().execute(new Runnable() {
+			public void run() {
+				try {
+					out.force(false);
+				}
+				catch(IOException e) {
+					// Closed meanwhile: close() forced it.
+				}
+				finally {
+					forcing.set(false);
+				}
+			}
+		});
+	}
+
+	private static synchronized ExecutorService forcer() {
+
+		if(forcer == null) {
+			forcer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable task) {
+					Thread thread = new Thread(task, "journal");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+
+		return forcer;
+	}
+
+	/**
+	 * Forces the journal to the disk and closes it.
+	 *
+	 * @throws IOException if the file can't be written
+	 */
+	public void close() throws IOException {
+
+		if(channel == null) {
+			return;
+		}
+
+		try {
+			channel.force(false);
+		}
+		finally {
+			channel.close();
+			channel = null;
+		}
+	}
+
+	/**
+	 * Closes and deletes the journal.
+	 *
+	 * @throws IOException if the file can't be deleted
+	 */
+	public void delete() throws IOException {
+		try {
+			close();
+		}
+		finally {
+			Files.deleteIfExists(path);
+		}
+	}
+}
@@ -1,13 +1,32 @@
 package maze.io;
 
+import maze.logic.DragonStore;
+import maze.logic.GameConfig;
 import maze.logic.GameLogic;
+
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Class that handles all "save/load from file" options.
  * 
  * It is used to save a game or a maze to ".sav" or ".maze" files (accordingly).
  * It is also used to load a custom maze or a saved game. 
+ * 
+ * Games are saved in the binary format of SaveFormat. Files saved before it
+ *   (with Java serialization) are still loaded, and migrate() rewrites them
+ *   in the binary format.
+ * 
+ * A file is never left half written (see writeFile()); BackgroundSaver saves
+ *   games without making the game wait for the disk.
  */
 public class GameIO {
 
@@ -26,32 +45,111 @@ public class GameIO {
 	 * @return 0 if OK
 	 */
 	public int save(GameLogic game, String fileName, String extension) {
-		ObjectOutputStream os = null;
+		
+		if(!fileName.contains(extension)) {
+			fileName += extension;
+		}
+		
+		return write(game, fileName);
+	}
+	
+	/**
+	 * Rewrites a saved game or maze in the binary format, if it was saved
+	 *   with Java serialization (files already in the binary format are left as they are).
+	 * 
+	 * @param fileName : the filename of the saved file
+	 * 
+	 * @return 0 if OK (or already in the binary format)
+	 */
+	public int migrate(String fileName) {
+		
+		GameLogic temp = null;
+		
 		try {
-			
-			if(!fileName.contains(extension)) {
-				fileName += extension;
+			if(isBinary(fileName)) {
+				return 0;
 			}
-			os = new ObjectOutputStream(new FileOutputStream(fileName));
 			
-			os.writeObject(game);
+			temp = read(fileName);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			return -1;
+		}
+		catch(ClassNotFoundException e ) {
+			e.printStackTrace();
+			return -1;
+		}
+		
+		return write(temp, fileName);
+	}
+	
+	/**
+	 * Writes a game to a file in the binary format.
+	 * 
+	 * @return 0 if OK
+	 */
+	private int write(GameLogic game, String fileName) {
+		try {
+			writeFile(game, fileName);
 		}
 		catch(IOException e) {
 			e.printStackTrace();
 			return -1;
 		}
-		finally {
-			if (os != null) {
-				try {
-					os.close();
-				} catch (IOException e) {
-					e.printStackTrace();
-					return -2;
-				}
+		
+		return 0;
+	}
+	
+	/**
+	 * Writes a game to a file in the binary format, safely: first to a temporary
+	 *   file (the name of the file plus ".tmp"), which is forced to the disk and
+	 *   then renamed over the file. So the file is always either the last save
+	 *   or the new one, never part of it, even if the program or the system stops.
+	 * 
+	 * @param game : the GameLogic instance
+	 * @param fileName : the filename of the saved file
+	 * @throws IOException if the file can't be written
+	 */
+	void writeFile(GameLogic game, String fileName) throws IOException {
+		
+		Path target = Paths.get(fileName).toAbsolutePath();
+		Path temp = Paths.get(target + ".tmp");
+		
+		try {
+			FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+					StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+			try {
+				new SaveFormat().write(game, channel);
+				channel.force(true);
+			}
+			finally {
+				channel.close();
+			}
+			
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch(AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
 			}
 		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
 		
-		return 0;
+		// The rename is kept by the folder: forced too, where the system allows it (not on Windows).
+		try {
+			FileChannel folder = FileChannel.open(target.getParent(), StandardOpenOption.READ);
+			try {
+				folder.force(true);
+			}
+			finally {
+				folder.close();
+			}
+		}
+		catch(IOException e) {
+		}
 	}
 	
 	/**
@@ -63,14 +161,11 @@ public class GameIO {
 	 * @return 0 if OK
 	 */
 	public int loadGame(GameLogic game, String fileName) {
-		ObjectInputStream in = null;
 
 		GameLogic temp = null;
 		
 		try {
-			in = new ObjectInputStream(new FileInputStream(fileName));
-			
-			temp = (GameLogic) in.readObject();	
+			temp = read(fileName);
 		}
 		catch (IOException e) {
 			e.printStackTrace();
@@ -80,18 +175,14 @@ public class GameIO {
 			e.printStackTrace();
 			return -1;
 		}
-		finally {
-			if (in != null) {
-				try {
-					in.close();
-				} catch (IOException e) {
-					e.printStackTrace();
-					return -2;
-				}
-			}
+		
+		// The binary format doesn't keep the board: it is composed again below.
+		char board[][] = temp.getBoard();
+		if(board == null && temp.getMaze() != null) {
+			board = new char[temp.getMaze().getSize()][temp.getMaze().getSize()];
 		}
 		
-		game.setBoard(temp.getBoard());
+		game.setBoard(board);
 		game.setConfig(temp.getConfig());
 		game.setDragons(temp.getDragons());
 		game.setEagle(temp.getEagle());
@@ -100,8 +191,21 @@ public class GameIO {
 		game.setSword(temp.getSword());
 		game.setTasks(temp.getTasks());
 		game.setValid(temp.isValid());
+		game.setRandom(temp.getRandom());
 		
-		game.getConfigWindow().setConfig(game.getConfig());
+		// Saved as Dragon objects: kept in arrays again if the game keeps them so.
+		if(game.getConfig() != null && game.getConfig().getDragonStorage() == GameConfig.ARRAY_DRAGONS
+				&& temp.getDragons() != null && game.getMaze() != null) {
+			game.setDragonStore(new DragonStore(game.getMaze().getSize(), temp.getDragons()));
+		}
+		
+		if(temp.getBoard() == null && game.getHero() != null) {
+			game.setGameBoard();
+		}
+		
+		if(game.getConfigWindow() != null) {
+			game.getConfigWindow().setConfig(game.getConfig());
+		}
 		
 		return 0;
 	}
@@ -116,14 +220,11 @@ public class GameIO {
 	 * @return 0 if OK
 	 */
 	public int loadMaze(GameLogic game, String fileName) {
-		ObjectInputStream in = null;
 
 		GameLogic temp = null;
 		
 		try {
-			in = new ObjectInputStream(new FileInputStream(fileName));
-			
-			temp = (GameLogic) in.readObject();	
+			temp = read(fileName);
 		}
 		catch (IOException e) {
 			e.printStackTrace();
@@ -133,16 +234,6 @@ public class GameIO {
 			e.printStackTrace();
 			return -1;
 		}
-		finally {
-			if (in != null) {
-				try {
-					in.close();
-				} catch (IOException e) {
-					e.printStackTrace();
-					return -2;
-				}
-			}
-		}
 		
 		if(temp == null) {
 			System.out.println("null temp");
@@ -156,4 +247,52 @@ public class GameIO {
 		
 		return 0;
 	}
+	
+	/**
+	 * Reads a saved game or maze, in the binary format or saved with Java serialization.
+	 * 
+	 * @param fileName : filename to be read the information from
+	 * @return the game read
+	 */
+	private GameLogic read(String fileName) throws IOException, ClassNotFoundException {
+		
+		FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+		try {
+			if(isBinary(channel)) {
+				return new SaveFormat().read(channel);
+			}
+			
+			ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+			return (GameLogic) in.readObject();
+		}
+		finally {
+			channel.close();
+		}
+	}
+	
+	private boolean isBinary(String fileName) throws IOException {
+		
+		FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+		try {
+			return isBinary(channel);
+		}
+		finally {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Checks if a file starts with the header of the binary format
+	 *   (and goes back to the start of the file).
+	 */
+	private boolean isBinary(FileChannel channel) throws IOException {
+		
+		ByteBuffer header = ByteBuffer.allocate(4);
+		
+		while(header.hasRemaining() && channel.read(header) >= 0) {
+		}
+		channel.position(0);
+		
+		return !header.hasRemaining() && header.getInt(0) == SaveFormat.MAGIC;
+	}
 }
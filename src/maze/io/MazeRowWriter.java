@@ -0,0 +1,41 @@
+package maze.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import maze.logic.MazeRowSink;
+
+/**
+ * Class that writes the rows of a streamed maze to a text stream,
+ *   one line of tiles per row (eg: to a file, through a BufferedWriter).
+ *
+ * @see maze.logic.StreamingMazeGenerator
+ */
+public class MazeRowWriter implements MazeRowSink {
+
+	private Writer writer;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param writer : stream to write the rows to (should be buffered)
+	 */
+	public MazeRowWriter(Writer writer) {
+		this.writer = writer;
+	}
+
+	/* (non-Javadoc)
+	 * @see maze.logic.MazeRowSink#row(long, char[])
+	 */
+	@Override
+	public void row(long index, char tiles[]) {
+		try {
+			writer.write(tiles);
+			writer.write('\n');
+		}
+		catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,656 @@
+package maze.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import maze.logic.Dragon;
+import maze.logic.Eagle;
+import maze.logic.Element;
+import maze.logic.GameConfig;
+import maze.logic.GameLogic;
+import maze.logic.GameRandom;
+import maze.logic.Hero;
+import maze.logic.Maze;
+import maze.logic.Moveable;
+import maze.logic.RandomStream;
+import maze.logic.Task;
+
+/**
+ * Class that writes and reads games in the binary save format.
+ *
+ * A save is a header (MAGIC and VERSION) followed by, in this order:
+ *   - the configuration and the randomness (seeds and streams) of the game;
+ *   - the maze: its size, exit, and the walls as they are kept in memory
+ *     (one bit per tile, see Maze.getWalls());
+ *   - the hero, the eagle, the sword and the dragons, each one a record of
+ *     fixed size (coordinates, symbol and a byte of flags, plus the sleep
+ *     and random stream of the dragons);
+ *   - the tasks.
+ *   Numbers are big-endian; a missing object is written as a 0 byte (or a
+ *   count of -1), and a present one as a 1 byte followed by its record.
+ *   The board isn't saved: it is composed again from the rest.
+ *
+ * Everything goes through a buffer of BUFFER bytes, so the channel is
+ *   written (or read) in big blocks, whatever the size of the game.
+ *
+ * @see GameIO
+ */
+public class SaveFormat {
+
+	// "MZSV"
+	public static final int MAGIC = 0x4D5A5356;
+	public static final int VERSION = 1;
+
+	private static final int BUFFER = 1 << 16;
+
+	// Flags of the records.
+	private static final int ALIVE = 1;
+	private static final int SWORD = 2;
+	private static final int HERO_EAGLE = 4;
+	private static final int HERO_WON = 8;
+	private static final int EAGLE_MOVING_HORIZONTALLY = 4;
+	private static final int EAGLE_MOVING = 8;
+	private static final int EAGLE_FLYING = 16;
+	private static final int EAGLE_USEFUL = 32;
+	private static final int DRAGON_AWAKE = 4;
+	private static final int DRAGON_RANDOM = 8;
+
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER);
+
+	private WritableByteChannel out;
+	private ReadableByteChannel in;
+
+	// **************************************** //
+	//											//
+	//				   WRITING					//
+	//											//
+	// **************************************** //
+
+	/**
+	 * Writes a game to a channel.
+	 *
+	 * @param game : game to write
+	 * @param channel : channel to write to (it isn't closed)
+	 * @throws IOException if the channel can't be written
+	 */
+	public void write(GameLogic game, WritableByteChannel channel) throws IOException {
+
+		out = channel;
+		buffer.clear();
+
+		room(6);
+		buffer.putInt(MAGIC);
+		buffer.putShort((short) VERSION);
+
+		room(1);
+		buffer.put((byte) (game.isValid() ? 1 : 0));
+
+		writeConfig(game.getConfig());
+		writeRandom(game.getRandom());
+		writeMaze(game.getMaze());
+
+		Hero hero = game.getHero();
+		if(writeElement(hero)) {
+			room(1);
+			buffer.put((byte) (flags(hero)
+					| (hero.hasEagle() ? HERO_EAGLE : 0)
+					| (hero.hasWon() ? HERO_WON : 0)));
+		}
+
+		Eagle eagle = game.getEagle();
+		if(writeElement(eagle)) {
+			room(1);
+			buffer.put((byte) (flags(eagle)
+					| (eagle.isMovingHorizontally() ? EAGLE_MOVING_HORIZONTALLY : 0)
+					| (eagle.isMoving() ? EAGLE_MOVING : 0)
+					| (eagle.isFlying() ? EAGLE_FLYING : 0)
+					| (eagle.isUseful() ? EAGLE_USEFUL : 0)));
+		}
+
+		writeElement(game.getSword());
+
+		writeDragons(game.getDragons());
+		writeTasks(game.getTasks());
+
+		flush();
+	}
+
+	private void writeConfig(GameConfig config) throws IOException {
+
+		if(!present(config)) {
+			return;
+		}
+
+		int keys[] = config.getGameKeyCodes();
+
+		room(52 + 4 * keys.length);
+		buffer.putInt(config.getMazeSize());
+		buffer.putInt(config.getDifficulty());
+		buffer.putInt(config.getMazeDragons());
+		buffer.putDouble(config.getDragonPerc());
+		buffer.putInt(config.getMode());
+		buffer.putInt(config.getMazeGenerator());
+		buffer.putInt(config.getDragonStorage());
+		buffer.putInt(config.getDragonThreads());
+		buffer.putLong(config.getSeed());
+		buffer.putInt(keys.length);
+		for(int key: keys) {
+			buffer.putInt(key);
+		}
+	}
+
+	private void writeRandom(GameRandom random) throws IOException {
+
+		if(!present(random)) {
+			return;
+		}
+
+		room(8);
+		buffer.putLong(random.getSeed());
+
+		writeStream(random.forMaze());
+		writeStream(random.forPlacement());
+		writeStream(random.forOthers());
+	}
+
+	private void writeStream(RandomStream stream) throws IOException {
+		room(16);
+		buffer.putLong(stream.getState());
+		buffer.putLong(stream.getGamma());
+	}
+
+	private void writeMaze(Maze maze) throws IOException {
+
+		if(!present(maze)) {
+			return;
+		}
+
+		long walls[] = maze.getWalls();
+
+		room(4);
+		buffer.putInt(maze.getSize());
+
+		writeElement(maze.getExit());
+
+		room(4);
+		buffer.putInt(walls.length);
+
+		for(long word: walls) {
+			room(8);
+			buffer.putLong(word);
+		}
+	}
+
+	private void writeDragons(Dragon dragons[]) throws IOException {
+
+		room(4);
+		buffer.putInt((dragons == null) ? -1 : dragons.length);
+
+		if(dragons == null) {
+			return;
+		}
+
+		for(Dragon dragon: dragons) {
+
+			if(!writeElement(dragon)) {
+				continue;
+			}
+
+			RandomStream random = dragon.getRandom();
+
+			room(21);
+			buffer.put((byte) (flags(dragon)
+					| (dragon.isAwake() ? DRAGON_AWAKE : 0)
+					| ((random != null) ? DRAGON_RANDOM : 0)));
+			buffer.putInt(dragon.getRoundsToWake());
+			buffer.putLong((random != null) ? random.getState() : 0);
+			buffer.putLong((random != null) ? random.getGamma() : 0);
+		}
+	}
+
+	private void writeTasks(Task tasks[]) throws IOException {
+
+		room(4);
+		buffer.putInt((tasks == null) ? -1 : tasks.length);
+
+		if(tasks == null) {
+			return;
+		}
+
+		for(Task task: tasks) {
+
+			if(!present(task)) {
+				continue;
+			}
+
+			room(1);
+			buffer.put((byte) (task.isDone() ? 1 : 0));
+
+			writeString(task.getDescription());
+		}
+	}
+
+	private void writeString(String text) throws IOException {
+
+		byte bytes[] = (text == null) ? null : text.getBytes(StandardCharsets.UTF_8);
+
+		room(4);
+		buffer.putInt((bytes == null) ? -1 : bytes.length);
+
+		if(bytes == null) {
+			return;
+		}
+
+		for(int done = 0; done < bytes.length; ) {
+			if(!buffer.hasRemaining()) {
+				flush();
+			}
+			int length = Math.min(buffer.remaining(), bytes.length - done);
+			buffer.put(bytes, done, length);
+			done += length;
+		}
+	}
+
+	/**
+	 * Writes the presence byte and, if there is one, the record of an element
+	 *   (coordinates, old coordinates and symbol).
+	 *
+	 * @return true if there is an element
+	 */
+	private boolean writeElement(Element element) throws IOException {
+
+		if(!present(element)) {
+			return false;
+		}
+
+		room(18);
+		buffer.putInt(element.getX());
+		buffer.putInt(element.getY());
+		buffer.putInt(element.getOldX());
+		buffer.putInt(element.getOldY());
+		buffer.putChar(element.getSymbol());
+
+		return true;
+	}
+
+	private boolean present(Object object) throws IOException {
+		room(1);
+		buffer.put((byte) ((object != null) ? 1 : 0));
+		return object != null;
+	}
+
+	private int flags(Moveable moveable) {
+		return (moveable.isAlive() ? ALIVE : 0) | (moveable.hasSword() ? SWORD : 0);
+	}
+
+	/**
+	 * Makes room in the buffer for the given number of bytes (at most BUFFER).
+	 */
+	private void room(int bytes) throws IOException {
+		if(buffer.remaining() < bytes) {
+			flush();
+		}
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			out.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	// **************************************** //
+	//											//
+	//				   READING					//
+	//											//
+	// **************************************** //
+
+	/**
+	 * Reads a game from a channel.
+	 *   The game read isn't ready to be played: its elements are to be handed
+	 *   to the current game (see GameIO.loadGame()), which composes the board.
+	 *
+	 * @param channel : channel to read from, at the start of the save (it isn't closed)
+	 * @return the game read
+	 * @throws IOException if the channel can't be read, or doesn't hold a save of a known version
+	 */
+	public GameLogic read(ReadableByteChannel channel) throws IOException {
+
+		in = channel;
+		buffer.clear();
+		buffer.flip();
+
+		need(6);
+		if(buffer.getInt() != MAGIC) {
+			throw new IOException("Not a saved game");
+		}
+
+		int version = buffer.getShort();
+		if(version != VERSION) {
+			throw new IOException("Unknown save version: " + version);
+		}
+
+		GameLogic game = new GameLogic();
+
+		need(1);
+		game.setValid(buffer.get() != 0);
+
+		game.setConfig(readConfig());
+		game.setRandom(readRandom());
+		game.setMaze(readMaze());
+
+		if(present()) {
+			Hero hero = new Hero();
+			readElement(hero);
+			int flags = readFlags(hero);
+			hero.setHasEagle((flags & HERO_EAGLE) != 0);
+			hero.setWon((flags & HERO_WON) != 0);
+			game.setHero(hero);
+		}
+
+		if(present()) {
+			Eagle eagle = new Eagle();
+			readElement(eagle);
+			int flags = readFlags(eagle);
+			eagle.setMovingHorizontally((flags & EAGLE_MOVING_HORIZONTALLY) != 0);
+			eagle.setMoving((flags & EAGLE_MOVING) != 0);
+			eagle.setFlying((flags & EAGLE_FLYING) != 0);
+			eagle.setUseful((flags & EAGLE_USEFUL) != 0);
+			game.setEagle(eagle);
+		}
+
+		if(present()) {
+			Element sword = new Element();
+			readElement(sword);
+			game.setSword(sword);
+		}
+
+		game.setDragons(readDragons());
+		game.setTasks(readTasks());
+
+		return game;
+	}
+
+	private GameConfig readConfig() throws IOException {
+
+		if(!present()) {
+			return null;
+		}
+
+		GameConfig config = new GameConfig();
+
+		need(52);
+		config.setMazeSize(buffer.getInt());
+		config.setDifficulty(buffer.getInt());
+		config.setMazeDragons(buffer.getInt());
+		config.setDragonPerc(buffer.getDouble());
+		config.setMode(buffer.getInt());
+		config.setMazeGenerator(buffer.getInt());
+		config.setDragonStorage(buffer.getInt());
+		config.setDragonThreads(buffer.getInt());
+		config.setSeed(buffer.getLong());
+
+		int count = count(4);
+		if(count < 0) {
+			throw new IOException("Bad count: " + count);
+		}
+
+		int keys[] = new int[Math.min(count, BUFFER / 4)];
+		for(int i = 0; i < count; i++) {
+			need(4);
+			if(i == keys.length) {
+				keys = Arrays.copyOf(keys, grown(keys.length, count));
+			}
+			keys[i] = buffer.getInt();
+		}
+		config.setGameKeyCodes(keys);
+
+		return config;
+	}
+
+	private GameRandom readRandom() throws IOException {
+
+		if(!present()) {
+			return null;
+		}
+
+		need(8);
+		long seed = buffer.getLong();
+
+		return new GameRandom(seed, readStream(), readStream(), readStream());
+	}
+
+	private RandomStream readStream() throws IOException {
+		need(16);
+		return RandomStream.restore(buffer.getLong(), buffer.getLong());
+	}
+
+	private Maze readMaze() throws IOException {
+
+		if(!present()) {
+			return null;
+		}
+
+		need(4);
+		int size = buffer.getInt();
+		if(size < 0 || (long) size * size > Integer.MAX_VALUE) {
+			throw new IOException("Bad maze size: " + size);
+		}
+
+		Element exit = null;
+		if(present()) {
+			exit = new Element();
+			readElement(exit);
+		}
+
+		need(4);
+		int count = buffer.getInt();
+		if(count != ((size * size) >> 6) + 1) {
+			throw new IOException("The walls don't match the size of the maze");
+		}
+
+		// Read before the maze is made, so a save that claims a huge maze
+		// it doesn't hold ends in an IOException, not in an OutOfMemoryError.
+		long walls[] = readLongs(count);
+
+		Maze maze = new Maze(size);
+		maze.setExit(exit);
+		System.arraycopy(walls, 0, maze.getWalls(), 0, count);
+
+		return maze;
+	}
+
+	/**
+	 * Reads an array of longs, only growing it as they are read
+	 *   (at most twice the size of what the save really holds).
+	 *   The other arrays of a save are read the same way, so a count that
+	 *   claims more than the save holds ends in an EOFException.
+	 */
+	private long[] readLongs(int count) throws IOException {
+
+		long longs[] = new long[Math.min(count, BUFFER / 8)];
+
+		for(int i = 0; i < count; i++) {
+			need(8);
+			if(i == longs.length) {
+				longs = Arrays.copyOf(longs, grown(longs.length, count));
+			}
+			longs[i] = buffer.getLong();
+		}
+
+		return longs;
+	}
+
+	private Dragon[] readDragons() throws IOException {
+
+		int count = count(1);
+		if(count < 0) {
+			return null;
+		}
+
+		Dragon dragons[] = new Dragon[Math.min(count, BUFFER)];
+
+		for(int i = 0; i < count; i++) {
+
+			boolean present = present();
+			if(i == dragons.length) {
+				dragons = Arrays.copyOf(dragons, grown(dragons.length, count));
+			}
+			if(!present) {
+				continue;
+			}
+
+			Dragon dragon = new Dragon();
+			readElement(dragon);
+
+			int flags = readFlags(dragon);
+			dragon.setAwake((flags & DRAGON_AWAKE) != 0);
+
+			need(20);
+			dragon.setRoundsToWake(buffer.getInt());
+			long state = buffer.getLong(), gamma = buffer.getLong();
+			if((flags & DRAGON_RANDOM) != 0) {
+				dragon.setRandom(RandomStream.restore(state, gamma));
+			}
+
+			dragons[i] = dragon;
+		}
+
+		return dragons;
+	}
+
+	private Task[] readTasks() throws IOException {
+
+		int count = count(1);
+		if(count < 0) {
+			return null;
+		}
+
+		Task tasks[] = new Task[Math.min(count, BUFFER)];
+
+		for(int i = 0; i < count; i++) {
+
+			boolean present = present();
+			if(i == tasks.length) {
+				tasks = Arrays.copyOf(tasks, grown(tasks.length, count));
+			}
+			if(!present) {
+				continue;
+			}
+
+			need(1);
+			boolean done = buffer.get() != 0;
+
+			tasks[i] = new Task(readString());
+			tasks[i].setDone(done);
+		}
+
+		return tasks;
+	}
+
+	private String readString() throws IOException {
+
+		need(4);
+		int length = buffer.getInt();
+
+		if(length < 0) {
+			return null;
+		}
+
+		byte bytes[] = new byte[Math.min(length, BUFFER)];
+
+		for(int done = 0; done < length; ) {
+			if(!buffer.hasRemaining()) {
+				need(1);
+			}
+			if(done == bytes.length) {
+				bytes = Arrays.copyOf(bytes, grown(bytes.length, length));
+			}
+			int chunk = Math.min(Math.min(buffer.remaining(), length - done), bytes.length - done);
+			buffer.get(bytes, done, chunk);
+			done += chunk;
+		}
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private void readElement(Element element) throws IOException {
+		need(18);
+		element.setX(buffer.getInt());
+		element.setY(buffer.getInt());
+		element.setOldX(buffer.getInt());
+		element.setOldY(buffer.getInt());
+		element.setSymbol(buffer.getChar());
+	}
+
+	private int readFlags(Moveable moveable) throws IOException {
+
+		need(1);
+		int flags = buffer.get();
+
+		moveable.setAlive((flags & ALIVE) != 0);
+		moveable.setHasSword((flags & SWORD) != 0);
+
+		return flags;
+	}
+
+	/**
+	 * Gets the new length of an array being read, full at the given length (twice it, at most count).
+	 */
+	private static int grown(int length, int count) {
+		return (int) Math.min(count, 2L * length);
+	}
+
+	private boolean present() throws IOException {
+		need(1);
+		return buffer.get() != 0;
+	}
+
+	/**
+	 * Reads a count of records of (at least) the given size, checking it is possible.
+	 *
+	 * @return the count, -1 if there is no array
+	 */
+	private int count(int recordSize) throws IOException {
+
+		need(4);
+		int count = buffer.getInt();
+
+		if(count < -1 || count > Integer.MAX_VALUE / recordSize) {
+			throw new IOException("Bad count: " + count);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Reads from the channel until the buffer holds the given number of bytes (at most BUFFER).
+	 */
+	private void need(int bytes) throws IOException {
+
+		if(buffer.remaining() >= bytes) {
+			return;
+		}
+
+		// Would never be read: the buffer would be full first.
+		if(bytes > buffer.capacity()) {
+			throw new IOException("Record too big: " + bytes + " bytes");
+		}
+
+		buffer.compact();
+
+		while(buffer.position() < bytes) {
+			if(in.read(buffer) < 0) {
+				throw new EOFException("The save is incomplete");
+			}
+		}
+
+		buffer.flip();
+	}
+}
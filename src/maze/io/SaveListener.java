@@ -0,0 +1,30 @@
+package maze.io;
+
+import java.io.IOException;
+
+/**
+ * Interface implemented by all "save listener" type objects.
+ *
+ * A save listener is told when a game saved in the background
+ *   (see BackgroundSaver) is on the disk, or couldn't be saved.
+ *   It is called on the thread of the saver, not on the game's.
+ *
+ * @see BackgroundSaver
+ */
+public interface SaveListener {
+
+	/**
+	 * Called when the game is saved.
+	 *
+	 * @param fileName : the filename of the saved file
+	 */
+	public void saved(String fileName);
+
+	/**
+	 * Called when the game couldn't be saved (the file is as it was).
+	 *
+	 * @param fileName : the filename of the file
+	 * @param e : the reason (an unexpected exception is its cause)
+	 */
+	public void failed(String fileName, IOException e);
+}
@@ -0,0 +1,32 @@
+package maze.io;
+
+/**
+ * Class that rewrites games and mazes saved with Java serialization
+ *   (".sav" and ".maze" files) in the binary format (see SaveFormat).
+ *
+ * Takes the names of the files to migrate (eg: java maze.io.SaveMigrator a.sav b.maze);
+ *   files already in the binary format are left as they are.
+ */
+public class SaveMigrator {
+
+	public static void main(String[] args) {
+
+		GameIO gameIO = new GameIO();
+
+		int failed = 0;
+
+		for(String fileName: args) {
+			if(gameIO.migrate(fileName) == 0) {
+				System.out.println(fileName + ": ok");
+			}
+			else {
+				System.out.println(fileName + ": failed");
+				failed++;
+			}
+		}
+
+		if(failed > 0) {
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package maze.logic;
+
+import java.util.Random;
+
+/**
+ * Class that represents the default maze generator.
+ *
+ * Follows the (iterative) backtracking algorithm, starting at the cell
+ *   next to the exit. The cells are numbered (cell = row * columns + column),
+ *   so the stack and the visited set are kept in primitive arrays, and
+ *   the number of cells still to visit is kept in a counter, so the
+ *   generation ends as soon as the last cell is carved.
+ *
+ * Generation time and memory are linear in the number of cells.
+ *
+ * @see MazeGenerator
+ */
+public class BacktrackerGenerator implements MazeGenerator {
+
+	/**
+	 * Default Constructor.
+	 */
+	public BacktrackerGenerator() {}
+
+	/* (non-Javadoc)
+	 * @see maze.logic.MazeGenerator#carve(maze.logic.Maze, java.util.Random)
+	 */
+	@Override
+	public void carve(Maze maze, Random random) {
+
+		// Cells per row (and per column).
+		int cells = (maze.getSize() - 1) / 2;
+
+		if(cells <= 0) {
+			return;
+		}
+
+		long open[] = new long[((2 * cells * cells) >> 6) + 1];
+
+		carveCells(cells, cells, startCell(maze, cells), random, open);
+
+		openWalls(maze, open, 0, 0, cells, cells);
+	}
+
+	/**
+	 * Carves a rectangle of cells (rows x columns) following the backtracking algorithm.
+	 *   The opened walls are stored in [open], two bits per cell:
+	 *     - bit (2 * cell) - the wall to the right of the cell is open;
+	 *     - bit (2 * cell + 1) - the wall below the cell is open.
+	 *
+	 * @param rows : number of rows of cells
+	 * @param columns : number of columns of cells
+	 * @param start : number of the starting cell
+	 * @param random : source of randomness to use
+	 * @param open : bit set where the open walls are stored
+	 */
+	static void carveCells(int rows, int columns, int start, Random random, long open[]) {
+
+		long visited[] = new long[((rows * columns) >> 6) + 1];
+		int stack[] = new int[64];
+		int top = 0;
+
+		int neighbours[] = new int[4];
+
+		int current = start;
+		visited[current >> 6] |= 1L << current;
+		stack[top++] = current;
+
+		int remaining = rows * columns - 1;
+
+		while(remaining > 0 && top > 0) {
+
+			current = stack[top - 1];
+
+			int row = current / columns;
+			int column = current - row * columns;
+
+			// Gathers the unvisited neighbours.
+			int count = 0;
+			// UP
+			if(row > 0 && !isVisited(visited, current - columns)) neighbours[count++] = current - columns;
+			// RIGHT
+			if(column < columns - 1 && !isVisited(visited, current + 1)) neighbours[count++] = current + 1;
+			// DOWN
+			if(row < rows - 1 && !isVisited(visited, current + columns)) neighbours[count++] = current + columns;
+			// LEFT
+			if(column > 0 && !isVisited(visited, current - 1)) neighbours[count++] = current - 1;
+
+			if(count == 0) {
+				// Dead end: backtrack.
+				top--;
+				continue;
+			}
+
+			int next = neighbours[(count == 1) ? 0 : random.nextInt(count)];
+
+			// Opens the wall between the two cells (stored in the upper/left one).
+			if(next == current + 1) setOpen(open, 2 * current);
+			else if(next == current - 1) setOpen(open, 2 * next);
+			else if(next == current + columns) setOpen(open, 2 * current + 1);
+			else setOpen(open, 2 * next + 1);
+
+			visited[next >> 6] |= 1L << next;
+			remaining--;
+
+			if(top == stack.length) {
+				int grown[] = new int[stack.length * 2];
+				System.arraycopy(stack, 0, grown, 0, top);
+				stack = grown;
+			}
+			stack[top++] = next;
+		}
+	}
+
+	/**
+	 * Opens in the maze the walls stored in [open] (see carveCells()).
+	 *
+	 * @param maze : maze to carve
+	 * @param open : bit set with the open walls
+	 * @param firstRow : row of the maze cell where the rectangle begins
+	 * @param firstColumn : column of the maze cell where the rectangle begins
+	 * @param rows : number of rows of cells
+	 * @param columns : number of columns of cells
+	 */
+	static void openWalls(Maze maze, long open[], int firstRow, int firstColumn, int rows, int columns) {
+
+		for(int row = 0; row < rows; row++) {
+
+			int x = 2 * (firstRow + row) + 1;
+
+			for(int column = 0; column < columns; column++) {
+
+				int cell = row * columns + column;
+				int y = 2 * (firstColumn + column) + 1;
+
+				// RIGHT
+				if(isOpen(open, 2 * cell)) maze.setTile(x, y + 1, ' ');
+				// DOWN
+				if(isOpen(open, 2 * cell + 1)) maze.setTile(x + 1, y, ' ');
+			}
+		}
+	}
+
+	/**
+	 * Gets the cell next to the exit of the maze (the cell where the generation starts).
+	 *   If the exit isn't on the frontier, the first cell is used.
+	 *
+	 * @param maze : maze being generated
+	 * @param cells : number of cells per row
+	 * @return the number of the starting cell
+	 */
+	private int startCell(Maze maze, int cells) {
+
+		int size = maze.getSize();
+
+		if(maze.getExit() == null) {
+			return 0;
+		}
+
+		int x = maze.getExit().getX();
+		int y = maze.getExit().getY();
+
+		if(x == 0) x++;
+		else if(x == (size - 1)) x--;
+		else if(y == 0) y++;
+		else if(y == (size - 1)) y--;
+
+		int row = Math.min(Math.max((x - 1) / 2, 0), cells - 1);
+		int column = Math.min(Math.max((y - 1) / 2, 0), cells - 1);
+
+		return row * cells + column;
+	}
+
+	private static void setOpen(long open[], int bit) {
+		open[bit >> 6] |= 1L << bit;
+	}
+
+	private static boolean isOpen(long open[], int bit) {
+		return (open[bit >> 6] & (1L << bit)) != 0;
+	}
+
+	/**
+	 * Checks if a cell has been visited.
+	 *
+	 * @param visited : visited bit set
+	 * @param cell : number of the cell
+	 * @return true if visited
+	 */
+	private static boolean isVisited(long visited[], int cell) {
+		return (visited[cell >> 6] & (1L << cell)) != 0;
+	}
+}
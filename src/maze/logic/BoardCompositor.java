@@ -0,0 +1,254 @@
+package maze.logic;
+
+import java.util.Arrays;
+
+/**
+ * Class that composes the game board (GameLogic.setGameBoard()) in two layers:
+ *   - the static layer: the tiles of the maze and the exit;
+ *   - the entity layer: hero, eagle, dragons and sword, painted every turn.
+ *
+ * Every turn only the cells painted by the entities (this turn or the last one)
+ *   are written to the board, instead of copying the whole maze again, and
+ *   the cells whose symbol really changed are kept in a change list, so the
+ *   renderers may redraw only those.
+ *
+ * The whole board is composed again (and isFullRedraw() is true) the first
+ *   time, and whenever the board or the maze of the game is replaced.
+ *
+ * Besides the board, it only takes one bit per cell (which cells the
+ *   entities are painting), so it is fit for very large mazes.
+ */
+public class BoardCompositor {
+
+	private int size;
+	private char board[][];
+	private Maze maze;
+
+	// Static layer: the maze, and the exit on it.
+	private int exitCell;
+	private char exitSymbol;
+
+	// Cells (x * size + y) painted by the entities on the last turn, and on this one.
+	private int layer[] = new int[16];
+	private int layerCount;
+	private int next[] = new int[16];
+	private char nextSymbols[] = new char[16];
+	private int nextCount;
+
+	// Cells being painted by the entities (one bit per cell, cleared after each compose()).
+	private long painted[];
+
+	// Cells changed by the last compose().
+	private int changes[] = new int[16];
+	private int changeCount;
+	private boolean fullRedraw;
+
+	/**
+	 * Composes the board of a game.
+	 *
+	 * @param game : current GameLogic instance
+	 * @param board : board to compose (the board of the game)
+	 */
+	public void compose(GameLogic game, char board[][]) {
+
+		Maze maze = game.getMaze();
+
+		if(board == null || maze == null) {
+			return;
+		}
+
+		changeCount = 0;
+		fullRedraw = (board != this.board || maze != this.maze || board.length != size);
+
+		if(fullRedraw) {
+			reset(maze, board);
+		}
+
+		nextCount = 0;
+
+		paintEntities(game);
+
+		// Cells the entities have left.
+		for(int i = 0; i < layerCount; i++) {
+			int cell = layer[i];
+			if((painted[cell >> 6] & (1L << cell)) == 0) {
+				write(cell, tileAt(cell));
+			}
+		}
+
+		// New entity layer (the last entity painted on a cell is the one seen).
+		for(int i = nextCount - 1; i >= 0; i--) {
+			int cell = next[i];
+			if((painted[cell >> 6] & (1L << cell)) != 0) {
+				painted[cell >> 6] &= ~(1L << cell);
+				write(cell, nextSymbols[i]);
+			}
+		}
+
+		int swap[] = layer;
+		layer = next;
+		next = swap;
+		layerCount = nextCount;
+	}
+
+	/**
+	 * Checks if the whole board was composed again by the last compose()
+	 *   (the change list is then empty, and every cell must be redrawn).
+	 *
+	 * @return true if every cell must be redrawn
+	 */
+	public boolean isFullRedraw() {
+		return fullRedraw;
+	}
+
+	/**
+	 * Gets the number of cells changed by the last compose().
+	 *
+	 * @return number of changed cells
+	 */
+	public int getChangeCount() {
+		return changeCount;
+	}
+
+	/**
+	 * Gets the X coordinate of a changed cell.
+	 *
+	 * @param index : index in the change list (0 to getChangeCount() - 1)
+	 * @return X coordinate
+	 */
+	public int getChangedX(int index) {
+		return changes[index] / size;
+	}
+
+	/**
+	 * Gets the Y coordinate of a changed cell.
+	 *
+	 * @param index : index in the change list (0 to getChangeCount() - 1)
+	 * @return Y coordinate
+	 */
+	public int getChangedY(int index) {
+		return changes[index] % size;
+	}
+
+	/**
+	 * Paints the symbol of an entity on the entity layer.
+	 *   Entities painted later cover the ones painted before on the same cell.
+	 *
+	 * @param x : X coordinate
+	 * @param y : Y coordinate
+	 * @param symbol : symbol of the entity
+	 */
+	void paint(int x, int y, char symbol) {
+
+		if(x < 0 || y < 0 || x >= size || y >= size) {
+			return;
+		}
+
+		int cell = x * size + y;
+
+		if(nextCount == next.length) {
+			next = Arrays.copyOf(next, next.length * 2);
+		}
+		if(nextCount == nextSymbols.length) {
+			nextSymbols = Arrays.copyOf(nextSymbols, nextSymbols.length * 2);
+		}
+
+		painted[cell >> 6] |= 1L << cell;
+		next[nextCount] = cell;
+		nextSymbols[nextCount++] = symbol;
+	}
+
+	/**
+	 * Paints the entities in the same order as they have always been drawn:
+	 *   hero, eagle, dragons and, last, the sword.
+	 */
+	private void paintEntities(GameLogic game) {
+
+		Hero hero = game.getHero();
+		Eagle eagle = game.getEagle();
+		Element sword = game.getSword();
+
+		if(hero != null) {
+			paint(hero.getX(), hero.getY(), hero.getSymbol());
+		}
+
+		if((eagle != null) && !hero.hasEagle() && eagle.isAlive()) {
+			paint(eagle.getX(), eagle.getY(), eagle.getSymbol());
+		}
+
+		if(game.getDragonStore() != null) {
+			game.getDragonStore().drawTo(this);
+		}
+		else if(game.getDragons() != null) {
+			for(Dragon dragon: game.getDragons()) {
+				if(dragon != null && dragon.isAlive()) {
+					paint(dragon.getX(), dragon.getY(), dragon.getSymbol());
+				}
+			}
+		}
+
+		if(sword != null && hero != null && eagle != null) {
+			if(!hero.hasSword() && game.noDragonIsUponSword() && !eagle.hasSword()) {
+				paint(sword.getX(), sword.getY(), sword.getSymbol());
+			}
+		}
+	}
+
+	/**
+	 * Writes a symbol to the board, adding the cell to the change list if it changed.
+	 */
+	private void write(int cell, char symbol) {
+
+		int x = cell / size, y = cell % size;
+
+		if(board[x][y] == symbol) {
+			return;
+		}
+
+		board[x][y] = symbol;
+
+		if(fullRedraw) {
+			return;
+		}
+
+		if(changeCount == changes.length) {
+			changes = Arrays.copyOf(changes, changes.length * 2);
+		}
+
+		changes[changeCount++] = cell;
+	}
+
+	/**
+	 * Gets the symbol of the static layer at a cell.
+	 */
+	private char tileAt(int cell) {
+		return (cell == exitCell) ? exitSymbol : maze.getTile(cell / size, cell % size);
+	}
+
+	/**
+	 * Copies the static layer (maze and exit) to a new board.
+	 */
+	private void reset(Maze maze, char board[][]) {
+
+		this.maze = maze;
+		this.board = board;
+		this.size = board.length;
+
+		exitCell = -1;
+
+		Element exit = maze.getExit();
+		if(exit != null && exit.getX() >= 0 && exit.getY() >= 0 && exit.getX() < size && exit.getY() < size) {
+			exitCell = exit.getX() * size + exit.getY();
+			exitSymbol = exit.getSymbol();
+		}
+
+		for(int i = 0; i < size; i++) {
+			for(int j = 0; j < size; j++) {
+				board[i][j] = tileAt(i * size + j);
+			}
+		}
+
+		painted = new long[(size * size + 63) >> 6];
+		layerCount = 0;
+	}
+}
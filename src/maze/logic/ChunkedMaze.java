@@ -0,0 +1,286 @@
+package maze.logic;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class that represents an "endless" maze.
+ *
+ * The maze is made of square chunks (CHUNK x CHUNK tiles) that are generated
+ *   on demand from the seed and the chunk coordinates, so any chunk can be
+ *   thrown away and generated again, exactly equal, when it is revisited.
+ *   Only a bounded number of chunks is kept (least recently used chunks are
+ *   evicted first, and focus() evicts the chunks far from the hero), so the
+ *   memory used doesn't depend on how far the player walks.
+ *
+ * As in Maze, the cells are the tiles with both coordinates odd. Each chunk
+ *   owns its top wall row and its left wall column, is carved with the
+ *   backtracking algorithm and has one opening to the chunk above and one
+ *   to the chunk on the left, so every cell is reachable.
+ *   Coordinates may be negative, and the tiles can't be changed.
+ *
+ * The tiles may be read from many threads at a time: the chunks are kept
+ *   in a concurrent map, and a chunk, once generated, is never changed.
+ *
+ * It is only a maze: the games (GameLogic) are played on a fixed Maze, whose
+ *   size the board and the windows are made of. Whoever walks it tells it
+ *   where the hero is with focus().
+ *
+ * @see Maze
+ */
+public class ChunkedMaze implements MazeView {
+
+	// Chunk side, in tiles (even, so every chunk begins with a wall row/column).
+	public static final int CHUNK = 64;
+
+	private static final int CELLS = CHUNK / 2;
+
+	private static final long TOP = 1;
+	private static final long LEFT = 2;
+
+	private long seed;
+	private int capacity;
+	private int radius;
+
+	private ConcurrentHashMap<Long, Chunk> chunks = new ConcurrentHashMap<Long, Chunk>();
+
+	// Last chunk used (most calls fall in the same chunk).
+	private volatile Chunk last;
+
+	// Tells which chunks were used least recently.
+	private AtomicLong clock = new AtomicLong();
+
+	private AtomicInteger generated = new AtomicInteger();
+
+	/**
+	 * Chunk of the maze: its key, its packed walls (one bit per tile, row after
+	 *   row) and when it was last used.
+	 */
+	private static class Chunk {
+
+		private final long key;
+		private final long walls[];
+
+		private volatile long used;
+
+		private Chunk(long key, long walls[]) {
+			this.key = key;
+			this.walls = walls;
+		}
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param seed : seed of the maze (same seed, same maze)
+	 * @param capacity : maximum number of chunks kept in memory
+	 * @param radius : chunks further than [radius] chunks from the focus are evicted
+	 */
+	public ChunkedMaze(long seed, int capacity, int radius) {
+		this.seed = seed;
+		this.capacity = Math.max(1, capacity);
+		this.radius = radius;
+	}
+
+	/* (non-Javadoc)
+	 * @see maze.logic.MazeView#isWall(int, int)
+	 */
+	@Override
+	public boolean isWall(int x, int y) {
+
+		int chunkX = Math.floorDiv(x, CHUNK);
+		int chunkY = Math.floorDiv(y, CHUNK);
+
+		int bit = (x - chunkX * CHUNK) * CHUNK + (y - chunkY * CHUNK);
+
+		long walls[] = getChunk(chunkX, chunkY).walls;
+
+		return (walls[bit >> 6] & (1L << bit)) != 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see maze.logic.MazeView#getTile(int, int)
+	 */
+	@Override
+	public char getTile(int x, int y) {
+		return isWall(x, y) ? 'x' : ' ';
+	}
+
+	/**
+	 * Moves the focus (the hero) to the tile (x, y):
+	 *   the chunks further than [radius] chunks are evicted.
+	 *
+	 * @param x : X coordinate
+	 * @param y : Y coordinate
+	 */
+	public void focus(int x, int y) {
+
+		int chunkX = Math.floorDiv(x, CHUNK);
+		int chunkY = Math.floorDiv(y, CHUNK);
+
+		Iterator<Long> keys = chunks.keySet().iterator();
+		while(keys.hasNext()) {
+			long key = keys.next();
+			int otherX = (int) (key >> 32);
+			int otherY = (int) key;
+
+			if(Math.abs(otherX - chunkX) > radius || Math.abs(otherY - chunkY) > radius) {
+				keys.remove();
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of chunks currently in memory.
+	 *
+	 * @return number of cached chunks
+	 */
+	public int getCachedChunks() {
+		return chunks.size();
+	}
+
+	/**
+	 * Gets the number of chunks generated so far (including regenerated ones).
+	 *
+	 * @return number of generated chunks
+	 */
+	public int getGeneratedChunks() {
+		return generated.get();
+	}
+
+	/**
+	 * Gets the seed of the maze.
+	 *
+	 * @return the seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Gets (generating it if needed) a chunk.
+	 *   The least recently used chunks are evicted if there are more than [capacity].
+	 *
+	 * @param chunkX : X coordinate of the chunk
+	 * @param chunkY : Y coordinate of the chunk
+	 * @return the chunk
+	 */
+	private Chunk getChunk(int chunkX, int chunkY) {
+
+		long key = ((long) chunkX << 32) | (chunkY & 0xffffffffL);
+
+		// The last chunk may have been evicted (focus()): it is still right, only not kept.
+		Chunk chunk = last;
+		if(chunk != null && chunk.key == key) {
+			return chunk;
+		}
+
+		chunk = chunks.get(key);
+		if(chunk == null) {
+
+			// Two threads may both generate it: both get the same walls.
+			chunk = new Chunk(key, generateChunk(key));
+			generated.incrementAndGet();
+
+			Chunk other = chunks.putIfAbsent(key, chunk);
+			if(other != null) {
+				chunk = other;
+			}
+			else if(chunks.size() > capacity) {
+				evict(key);
+			}
+		}
+
+		chunk.used = clock.incrementAndGet();
+		last = chunk;
+
+		return chunk;
+	}
+
+	/**
+	 * Evicts the least recently used chunks (other than the given one)
+	 *   until there are no more than [capacity].
+	 *
+	 * @param keep : key of the chunk to keep
+	 */
+	private synchronized void evict(long keep) {
+
+		while(chunks.size() > capacity) {
+
+			Chunk eldest = null;
+			for(Chunk chunk: chunks.values()) {
+				if(chunk.key != keep && (eldest == null || chunk.used < eldest.used)) {
+					eldest = chunk;
+				}
+			}
+
+			if(eldest == null) {
+				return;
+			}
+			chunks.remove(eldest.key, eldest);
+		}
+	}
+
+	/**
+	 * Generates a chunk: walls everywhere, then the cells carved with the
+	 *   backtracking algorithm, then the openings to the chunk above and
+	 *   to the chunk on the left.
+	 *
+	 * @param key : key of the chunk (chunkX << 32 | chunkY)
+	 * @return the packed walls of the chunk
+	 */
+	private long[] generateChunk(long key) {
+
+		long chunk[] = new long[(CHUNK * CHUNK) >> 6];
+		for(int i = 0; i < chunk.length; i++) {
+			chunk[i] = -1L;
+		}
+
+		RandomStream random = new RandomStream(RandomStream.mix64(seed ^ RandomStream.mix64(key)));
+
+		long open[] = new long[((2 * CELLS * CELLS) >> 6) + 1];
+		BacktrackerGenerator.carveCells(CELLS, CELLS, random.nextInt(CELLS * CELLS), random, open);
+
+		for(int row = 0; row < CELLS; row++) {
+			for(int column = 0; column < CELLS; column++) {
+
+				int cell = row * CELLS + column;
+				int x = 2 * row + 1, y = 2 * column + 1;
+
+				clear(chunk, x, y);
+				// RIGHT (the last column opens to the next chunk's left wall, not here)
+				if(column < CELLS - 1 && isSet(open, 2 * cell)) clear(chunk, x, y + 1);
+				// DOWN
+				if(row < CELLS - 1 && isSet(open, 2 * cell + 1)) clear(chunk, x + 1, y);
+			}
+		}
+
+		// Openings (depend only on the seed and the edge, see edgeCell()).
+		clear(chunk, 0, 2 * edgeCell(key, TOP) + 1);
+		clear(chunk, 2 * edgeCell(key, LEFT) + 1, 0);
+
+		return chunk;
+	}
+
+	/**
+	 * Gets the cell of the opening of a chunk edge.
+	 *
+	 * @param key : key of the chunk
+	 * @param edge : TOP or LEFT
+	 * @return the number of the cell (in the row/column) next to the opening
+	 */
+	private int edgeCell(long key, long edge) {
+		return (int) ((RandomStream.mix64(seed + RandomStream.mix64(key * 4 + edge)) >>> 1) % CELLS);
+	}
+
+	private static void clear(long chunk[], int x, int y) {
+		int bit = x * CHUNK + y;
+		chunk[bit >> 6] &= ~(1L << bit);
+	}
+
+	private static boolean isSet(long bits[], int bit) {
+		return (bits[bit >> 6] & (1L << bit)) != 0;
+	}
+}
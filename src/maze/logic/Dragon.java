@@ -17,9 +17,13 @@ public class Dragon extends Moveable {
 	private boolean awake;
 	private int roundsToWake;
 	
-	private int maxRounds = 2;
+	// Same for every dragon (also used by DragonStore).
+	static final int MAX_ROUNDS = 2;
 	
-	private int RANDOM_SLEEP = 6;
+	static final int RANDOM_SLEEP = 6;
+	
+	// Stream of random numbers owned by this dragon (see GameRandom).
+	private RandomStream random;
 	
 	/**
 	 * Default Constructor.
@@ -60,6 +64,24 @@ public class Dragon extends Moveable {
 		this.roundsToWake = 0;
 	}
 
+	/**
+	 * Copy Constructor.
+	 *   The copy has its own random stream, in the same state.
+	 * 
+	 * @param d : Dragon to copy
+	 */
+	public Dragon(Dragon d) {
+
+		super(d);
+		
+		this.awake = d.awake;
+		this.roundsToWake = d.roundsToWake;
+		
+		if(d.random != null) {
+			this.random = RandomStream.restore(d.random.getState(), d.random.getGamma());
+		}
+	}
+
 	/**
 	 * Gets the value of the parameter [awake].
 	 * 
@@ -96,6 +118,28 @@ public class Dragon extends Moveable {
 		this.roundsToWake = roundsToWake;
 	}
 	
+	/**
+	 * Gets the stream of random numbers of this dragon.
+	 *   If it has none, a new (unseeded) one is created.
+	 * 
+	 * @return the dragon's RandomStream
+	 */
+	public RandomStream getRandom() {
+		if(random == null) {
+			random = new RandomStream();
+		}
+		return random;
+	}
+
+	/**
+	 * Sets the stream of random numbers of this dragon.
+	 * 
+	 * @param random : stream to set
+	 */
+	public void setRandom(RandomStream random) {
+		this.random = random;
+	}
+
 	/**
 	 * Checks and sets if a dragon is asleep or not.
 	 * 
@@ -105,7 +149,7 @@ public class Dragon extends Moveable {
 	 * If the dragon is awake, the function randomly decides whether the dragon goes to sleep.
 	 */
 	public void setDragonState() {
-		Random r = new Random();
+		Random r = getRandom();
 		
 		if(this.isAwake()) {
 			boolean awake = (r.nextInt(RANDOM_SLEEP) > 0);
@@ -117,7 +161,7 @@ public class Dragon extends Moveable {
 				else {
 					this.setSymbol('d');
 				}
-				this.setRoundsToWake(r.nextInt(maxRounds) + 4);
+				this.setRoundsToWake(r.nextInt(MAX_ROUNDS) + 4);
 			}
 		}
 		else {
@@ -144,41 +188,78 @@ public class Dragon extends Moveable {
 	 */
 	public void update(GameLogic game) {
 		
-		int DUMB = 0;
-		int SLEEP = 1;
-		
-		// Sets dragon state.
-		
 		if(game.getConfig() == null) {
 			return;
 		}
 		
+		prepare(game);
+		
+		act(game, plan(game));
+	}
+	
+	/**
+	 * Gives the dragon its stream of random numbers, if it has none
+	 *   (the next one split from the game's, so the order of the calls matters).
+	 * 
+	 * @param game : current GameLogic instance
+	 */
+	void prepare(GameLogic game) {
+		if(random == null) {
+			random = game.getRandom().split();
+		}
+	}
+	
+	/**
+	 * First half of update(): sets the dragon state and picks where to move.
+	 *   Only this dragon is read or changed, so the dragons may plan concurrently.
+	 * 
+	 * @param game : current GameLogic instance
+	 * @return direction to move to, or -1 if the dragon doesn't move
+	 */
+	int plan(GameLogic game) {
+		
+		int DUMB = 0;
+		int SLEEP = 1;
+		
+		// Sets dragon state.
 		if(game.getConfig().getDifficulty() == SLEEP) {
 			if(alive) {
 				setDragonState();
 			}
 		}
 		
-		// Moves dragon. 
+		// Picks the movement.
 		if(game.getConfig().getDifficulty() > DUMB) {
 			if(awake && alive) {
-				Random r = new Random();
-				move(game, r.nextInt(4));
-				
-				if(game.getMaze().getExit() != null) {
-					if(isAt(game.getMaze().getExit())) {
-						moveBack();
-					}
+				return random.nextInt(4);
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Second half of update(): moves the dragon (if the position is free)
+	 *   and checks for found swords. Must be called for one dragon at a time.
+	 * 
+	 * @param game : current GameLogic instance
+	 * @param direction : direction given by plan()
+	 */
+	void act(GameLogic game, int direction) {
+		
+		// Moves dragon. 
+		if(direction >= 0) {
+			move(game, direction);
+			
+			if(game.getMaze().getExit() != null) {
+				if(isAt(game.getMaze().getExit())) {
+					moveBack();
 				}
-
 			}
 		}
 
 		// Checks if dragon has found the sword.
-		hasSword = false;
-		if(checkIfFound(game.getSword(), 0)) {
-			hasSword = true;
-		}
+		setHasSword(checkIfFound(game.getSword(), 0));
 
 	}
 }
@@ -0,0 +1,524 @@
+package maze.logic;
+
+import java.io.Serializable;
+
+/**
+ * Class that keeps all the dragons of a game in parallel arrays
+ *   (one array per attribute, one position per dragon) instead of
+ *   one Dragon object per dragon.
+ *
+ * The dragons behave exactly as Dragon.update() would make them behave
+ *   (with the same random numbers, so a game with the same seed is the same
+ *   game in both storages), but the update goes through the arrays in one
+ *   loop that doesn't allocate anything, which is what boards with hundreds
+ *   of thousands of dragons need.
+ *   The store also keeps which dragon is on each tile (see OccupancyGrid).
+ *
+ * getDragons() gives Dragon objects (for the window, saving, etc.), brought up
+ *   to date only when asked for. They are copies: changes made to them are
+ *   not seen by the store (dragons are killed through GameLogic.killDragon()).
+ *
+ * @see GameConfig#ARRAY_DRAGONS
+ */
+public class DragonStore implements Serializable {
+
+	private static final long serialVersionUID = 1;
+
+	private static final int DUMB = 0;
+	private static final int SLEEP = 1;
+
+	// UP, RIGHT, DOWN, LEFT (as in Moveable.move()).
+	private static final int DX[] = {-1, 0, 1, 0};
+	private static final int DY[] = {0, 1, 0, -1};
+
+	private int size;
+	private int count;
+
+	private int x[];
+	private int y[];
+	private int oldX[];
+	private int oldY[];
+	private char symbol[];
+	private boolean alive[];
+	private boolean hasSword[];
+	private boolean awake[];
+	private int roundsToWake[];
+
+	// State of the RandomStream of each dragon.
+	private long state[];
+	private long gamma[];
+
+	// Index (+1) of the alive dragon on each tile, 0 if none.
+	private int cells[];
+
+	// Number of alive dragons, and index of the dragon upon the sword (-1 if none).
+	private int aliveCount;
+	private int swordCarrier = -1;
+
+	// Movement picked by each dragon (see plan()): a tile, STAY or BLOCKED.
+	private transient int intent[];
+
+	private static final int STAY = -1;
+	private static final int BLOCKED = -2;
+
+	// Dragon objects given by getDragons(), and the version they were copied at.
+	private transient Dragon view[];
+	private transient long viewVersion[];
+	private transient long version;
+
+	/**
+	 * Constructor.
+	 *   The dragons must then be placed with place().
+	 *
+	 * @param size : size of the maze
+	 * @param count : number of dragons
+	 */
+	public DragonStore(int size, int count) {
+
+		this.size = size;
+		this.count = count;
+
+		x = new int[count];
+		y = new int[count];
+		oldX = new int[count];
+		oldY = new int[count];
+		symbol = new char[count];
+		alive = new boolean[count];
+		hasSword = new boolean[count];
+		awake = new boolean[count];
+		roundsToWake = new int[count];
+		state = new long[count];
+		gamma = new long[count];
+
+		cells = new int[size * size];
+	}
+
+	/**
+	 * Constructor.
+	 *   Keeps the dragons as they are (eg: the dragons of a loaded game).
+	 *
+	 * @param size : size of the maze
+	 * @param dragons : the dragons (a missing one is kept as dead)
+	 */
+	public DragonStore(int size, Dragon dragons[]) {
+
+		this(size, dragons.length);
+
+		for(int i = 0; i < count; i++) {
+
+			Dragon dragon = dragons[i];
+			if(dragon == null) {
+				symbol[i] = ' ';
+				continue;
+			}
+
+			x[i] = dragon.getX();
+			y[i] = dragon.getY();
+			oldX[i] = dragon.getOldX();
+			oldY[i] = dragon.getOldY();
+			symbol[i] = dragon.getSymbol();
+			alive[i] = dragon.isAlive();
+			hasSword[i] = dragon.hasSword();
+			awake[i] = dragon.isAwake();
+			roundsToWake[i] = dragon.getRoundsToWake();
+			state[i] = dragon.getRandom().getState();
+			gamma[i] = dragon.getRandom().getGamma();
+
+			if(alive[i]) {
+				aliveCount++;
+				if(cells[x[i] * size + y[i]] == 0) {
+					cells[x[i] * size + y[i]] = i + 1;
+				}
+			}
+
+			if(hasSword[i] && swordCarrier < 0) {
+				swordCarrier = i;
+			}
+		}
+	}
+
+	/**
+	 * Copy Constructor.
+	 *
+	 * @param s : DragonStore to copy
+	 */
+	public DragonStore(DragonStore s) {
+
+		this.size = s.size;
+		this.count = s.count;
+
+		x = s.x.clone();
+		y = s.y.clone();
+		oldX = s.oldX.clone();
+		oldY = s.oldY.clone();
+		symbol = s.symbol.clone();
+		alive = s.alive.clone();
+		hasSword = s.hasSword.clone();
+		awake = s.awake.clone();
+		roundsToWake = s.roundsToWake.clone();
+		state = s.state.clone();
+		gamma = s.gamma.clone();
+
+		cells = s.cells.clone();
+
+		aliveCount = s.aliveCount;
+		swordCarrier = s.swordCarrier;
+	}
+
+	/**
+	 * Places a new (alive and awake) dragon.
+	 *
+	 * @param index : index of the dragon
+	 * @param x : X coordinate
+	 * @param y : Y coordinate
+	 * @param random : stream of random numbers of the dragon (its state is copied)
+	 */
+	public void place(int index, int x, int y, RandomStream random) {
+
+		this.x[index] = x;
+		this.y[index] = y;
+		oldX[index] = x;
+		oldY[index] = y;
+		symbol[index] = 'D';
+		if(!alive[index]) {
+			aliveCount++;
+		}
+		alive[index] = true;
+		if(swordCarrier == index) {
+			swordCarrier = -1;
+		}
+		hasSword[index] = false;
+		awake[index] = true;
+		roundsToWake[index] = 0;
+		state[index] = random.getState();
+		gamma[index] = random.getGamma();
+
+		if(cells[x * size + y] == 0) {
+			cells[x * size + y] = index + 1;
+		}
+
+		version++;
+	}
+
+	/**
+	 * Gets the number of dragons (alive or dead).
+	 *
+	 * @return number of dragons
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets the index of the alive dragon at the tile (x, y).
+	 *
+	 * @param x : X coordinate
+	 * @param y : Y coordinate
+	 * @return the index of the dragon at (x, y), or -1 if none
+	 */
+	public int indexAt(int x, int y) {
+
+		if(x < 0 || y < 0 || x >= size || y >= size) {
+			return -1;
+		}
+
+		return cells[x * size + y] - 1;
+	}
+
+	/**
+	 * Checks if a dragon is alive.
+	 *
+	 * @param index : index of the dragon
+	 * @return true if alive
+	 */
+	public boolean isAlive(int index) {
+		return alive[index];
+	}
+
+	/**
+	 * Kills a dragon (as Moveable.die()).
+	 *
+	 * @param index : index of the dragon
+	 */
+	public void kill(int index) {
+
+		if(!alive[index]) {
+			return;
+		}
+
+		alive[index] = false;
+		aliveCount--;
+		symbol[index] = ' ';
+		leave(index);
+
+		version++;
+	}
+
+	/**
+	 * Checks if all dragons are dead.
+	 *
+	 * @return true if all dragons are dead
+	 */
+	public boolean allDead() {
+		return aliveCount == 0;
+	}
+
+	/**
+	 * Checks if any dragon is upon the sword.
+	 *
+	 * @return true if any dragon is upon the sword
+	 */
+	public boolean anyHasSword() {
+		return swordCarrier >= 0;
+	}
+
+	/**
+	 * Draws the alive dragons to a board.
+	 *
+	 * @param board : board to draw to
+	 */
+	public void drawTo(char board[][]) {
+		for(int i = 0; i < count; i++) {
+			if(alive[i]) {
+				board[x[i]][y[i]] = symbol[i];
+			}
+		}
+	}
+
+	/**
+	 * Paints the alive dragons on the entity layer of a board.
+	 *
+	 * @param compositor : compositor of the board
+	 */
+	void drawTo(BoardCompositor compositor) {
+		for(int i = 0; i < count; i++) {
+			if(alive[i]) {
+				compositor.paint(x[i], y[i], symbol[i]);
+			}
+		}
+	}
+
+	/**
+	 * Updates all the dragons (as Dragon.update(), one after the other).
+	 *
+	 * @param game : current GameLogic instance
+	 */
+	public void update(GameLogic game) {
+
+		if(game.getConfig() == null) {
+			return;
+		}
+
+		prepare();
+		plan(game, 0, count);
+		commit(game);
+	}
+
+	/**
+	 * Gets the store ready to plan (must be called before plan()).
+	 */
+	public void prepare() {
+		if(intent == null || intent.length != count) {
+			intent = new int[count];
+		}
+	}
+
+	/**
+	 * First half of update(), for the dragons [from, to): sets their state and
+	 *   picks where they move to (checking walls, hero and exit, which don't
+	 *   change during the dragons' turn). Each dragon only reads and changes
+	 *   its own positions of the arrays, so ranges may be planned concurrently.
+	 *
+	 * @param game : current GameLogic instance
+	 * @param from : first dragon
+	 * @param to : last dragon (exclusive)
+	 */
+	public void plan(GameLogic game, int from, int to) {
+
+		int difficulty = game.getConfig().getDifficulty();
+
+		Maze maze = game.getMaze();
+		Element exit = maze.getExit();
+		Element hero = game.getHero();
+
+		// Tiles of the hero and exit (-1 if there's none).
+		int heroCell = (hero == null) ? -1 : hero.getX() * size + hero.getY();
+		int exitCell = (exit == null) ? -1 : exit.getX() * size + exit.getY();
+
+		for(int i = from; i < to; i++) {
+
+			// Sets dragon state.
+			if(difficulty == SLEEP && alive[i]) {
+				setState(i);
+			}
+
+			// Picks the movement.
+			intent[i] = STAY;
+			if(difficulty > DUMB && awake[i] && alive[i]) {
+
+				int direction = nextInt(i, 4);
+				int toX = x[i] + DX[direction];
+				int toY = y[i] + DY[direction];
+				int tile = toX * size + toY;
+
+				intent[i] = (tile == heroCell || tile == exitCell || maze.isWall(toX, toY)) ? BLOCKED : tile;
+			}
+		}
+	}
+
+	/**
+	 * Second half of update(): moves the dragons, in order, to the tiles
+	 *   they picked (if still free) and checks for found swords.
+	 *
+	 * @param game : current GameLogic instance
+	 */
+	public void commit(GameLogic game) {
+
+		Element sword = game.getSword();
+		int swordCell = (sword == null) ? -1 : sword.getX() * size + sword.getY();
+
+		swordCarrier = -1;
+
+		for(int i = 0; i < count; i++) {
+
+			// Moves dragon (the first one to get to a tile keeps it).
+			if(intent[i] != STAY) {
+
+				oldX[i] = x[i];
+				oldY[i] = y[i];
+
+				int to = intent[i];
+				if(to >= 0 && cells[to] == 0) {
+					moveTo(i, to / size, to % size);
+				}
+			}
+
+			// Checks if dragon has found the sword.
+			hasSword[i] = (x[i] * size + y[i] == swordCell);
+			if(hasSword[i] && swordCarrier < 0) {
+				swordCarrier = i;
+			}
+		}
+
+		version++;
+	}
+
+	/**
+	 * Gets a dragon as a Dragon object, up to date with the store.
+	 *
+	 * @param index : index of the dragon
+	 * @return the dragon
+	 */
+	public Dragon getDragon(int index) {
+
+		if(view == null) {
+			view = new Dragon[count];
+			viewVersion = new long[count];
+			version++;
+		}
+
+		if(view[index] == null || viewVersion[index] != version) {
+			view[index] = copy(index, view[index]);
+			viewVersion[index] = version;
+		}
+
+		return view[index];
+	}
+
+	/**
+	 * Gets all the dragons as Dragon objects, up to date with the store.
+	 *
+	 * @return the dragons
+	 */
+	public Dragon[] getDragons() {
+
+		for(int i = 0; i < count; i++) {
+			getDragon(i);
+		}
+
+		return view;
+	}
+
+	/**
+	 * Checks and sets if a dragon is asleep or not (as Dragon.setDragonState()).
+	 *
+	 * @param i : index of the dragon
+	 */
+	private void setState(int i) {
+
+		if(awake[i]) {
+			if(nextInt(i, Dragon.RANDOM_SLEEP) <= 0) {
+				awake[i] = false;
+				symbol[i] = hasSword[i] ? 'f' : 'd';
+				roundsToWake[i] = nextInt(i, Dragon.MAX_ROUNDS) + 4;
+			}
+		}
+		else {
+			roundsToWake[i]--;
+			if(roundsToWake[i] <= 0) {
+				awake[i] = true;
+				symbol[i] = hasSword[i] ? 'F' : 'D';
+			}
+		}
+	}
+
+	private void moveTo(int i, int toX, int toY) {
+
+		leave(i);
+
+		x[i] = toX;
+		y[i] = toY;
+
+		if(cells[toX * size + toY] == 0) {
+			cells[toX * size + toY] = i + 1;
+		}
+	}
+
+	private void leave(int i) {
+		if(cells[x[i] * size + y[i]] == i + 1) {
+			cells[x[i] * size + y[i]] = 0;
+		}
+	}
+
+	/**
+	 * Same numbers as RandomStream.nextInt(bound) (that is, Random.nextInt(bound)),
+	 *   from the state of the dragon's stream.
+	 */
+	private int nextInt(int i, int bound) {
+
+		int r = next31(i);
+		int m = bound - 1;
+
+		if((bound & m) == 0) {
+			return (int) ((bound * (long) r) >> 31);
+		}
+
+		for(int u = r; u - (r = u % bound) + m < 0; u = next31(i));
+
+		return r;
+	}
+
+	private int next31(int i) {
+		return (int) (RandomStream.mix64(state[i] += gamma[i]) >>> 33);
+	}
+
+	private Dragon copy(int i, Dragon dragon) {
+
+		if(dragon == null) {
+			dragon = new Dragon(x[i], y[i], symbol[i]);
+		}
+
+		dragon.setX(x[i]);
+		dragon.setY(y[i]);
+		dragon.setOldX(oldX[i]);
+		dragon.setOldY(oldY[i]);
+		dragon.setSymbol(symbol[i]);
+		dragon.setAlive(alive[i]);
+		dragon.setHasSword(hasSword[i]);
+		dragon.setAwake(awake[i]);
+		dragon.setRoundsToWake(roundsToWake[i]);
+		dragon.setRandom(RandomStream.restore(state[i], gamma[i]));
+
+		return dragon;
+	}
+}
@@ -46,6 +46,21 @@ public class Eagle extends Moveable {
 		this.useful = true;			
 	}
 
+	/**
+	 * Copy Constructor.
+	 * 
+	 * @param e : Eagle to copy
+	 */
+	public Eagle(Eagle e) {
+		
+		super(e);
+		
+		this.movingHorizontally = e.movingHorizontally;
+		this.moving = e.moving;
+		this.flying = e.flying;
+		this.useful = e.useful;
+	}
+
 	/**
 	 * Gets the value of the parameter [movingHorizontally].
 	 * 
@@ -244,23 +259,18 @@ public class Eagle extends Moveable {
 			if (game.getHero() != null) {
 				if(!flying && !game.getHero().hasEagle()) {
 
-					if(game.getDragons() != null) {
-						for(Dragon dragon : game.getDragons()) {
+					if(game.dragonAt(x, y) != null) {
 
-							if(checkIfFound(dragon, 0)) {
+						die();
 
-								die();
+						if((game.getSword() != null) && hasSword) {
 
-								if((game.getSword() != null) && hasSword) {
-
-									hasSword = false;
-									moving = false;
-									flying = false;
+							hasSword = false;
+							moving = false;
+							flying = false;
 
-									game.getSword().setX(x);
-									game.getSword().setY(y);
-								}
-							}
+							game.getSword().setX(x);
+							game.getSword().setY(y);
 						}
 					}
 				}
@@ -50,6 +50,20 @@ public class Element implements Serializable {
 		this.symbol = symbol;
 	}
 	
+	/**
+	 * Copy Constructor.
+	 * 
+	 * @param e : Element to copy
+	 */
+	public Element(Element e) {
+		
+		this.x = e.x;
+		this.y = e.y;
+		this.oldX = e.oldX;
+		this.oldY = e.oldY;
+		this.symbol = e.symbol;
+	}
+	
 	/**
 	 * Constructor for Element.
 	 *   Receives its symbol and sets the initial position to te origin (0, 0).
@@ -179,7 +193,12 @@ public class Element implements Serializable {
 	 * @param game the gameLogic instance which contains the maze
 	 */
 	public void GeneratePos(GameLogic game) {
-		Random r = new Random();
+		
+		if(takeFreeCell(game)) {
+			return;
+		}
+		
+		Random r = game.getRandom().forPlacement();
 		
 		int MAX = game.getMaze().getSize();
 		int posX = 0, posY = 0;
@@ -195,6 +214,32 @@ public class Element implements Serializable {
 		
 	}
 
+	/**
+	 * Places the Element on a free cell taken from the game's FreeCellIndex, if there is one.
+	 * 
+	 * @param game the gameLogic instance which contains the maze
+	 * @return true if placed, false if the game has no FreeCellIndex
+	 * @throws IllegalStateException if there are no free cells left
+	 */
+	protected boolean takeFreeCell(GameLogic game) {
+		
+		FreeCellIndex freeCells = game.getFreeCells();
+		if(freeCells == null) {
+			return false;
+		}
+		
+		int cell = freeCells.take();
+		if(cell < 0) {
+			throw new IllegalStateException("No free cell left in the maze");
+		}
+		
+		int size = game.getMaze().getSize();
+		this.x = cell / size;
+		this.y = cell % size;
+		
+		return true;
+	}
+
 	/**
 	 * Checks if the position (x, y) is valid for the Element to be in it.
 	 * 
@@ -207,7 +252,7 @@ public class Element implements Serializable {
 
 		if(!(game.getMaze() == null)) {
 			
-			if(game.getMaze().getTiles()[x][y] == 'x') {
+			if(game.getMaze().isWall(x, y)) {
 				return false;
 			}
 		}
@@ -226,17 +271,8 @@ public class Element implements Serializable {
 			}
 		}
 		
-		if(!(game.getDragons() == null)) {
-
-			for(Dragon dragon: game.getDragons()) {
-
-				if(!(dragon == null)) {
-
-					if(dragon.isAt(x, y)) {
-						return false;
-					}
-				}
-			}
+		if(game.dragonAt(x, y) != null) {
+			return false;
 		}
 
 		return true;
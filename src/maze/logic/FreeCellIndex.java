@@ -0,0 +1,102 @@
+package maze.logic;
+
+import java.util.Random;
+
+/**
+ * Class that hands out free cells of a maze, in random order, to place the
+ *   elements at the start of a game.
+ *
+ * All the floor tiles are put in an array that is shuffled lazily (one step
+ *   of the Fisher-Yates shuffle per cell taken), and a bitmap keeps the
+ *   occupied ones, so each cell is given in constant time and never twice,
+ *   however crowded the maze is.
+ *
+ * Cells are numbered as in Maze: x * size + y.
+ */
+public class FreeCellIndex {
+
+	private int size;
+	private int cells[];
+	private int count;
+	private int next;
+	private long occupied[];
+	private Random random;
+
+	/**
+	 * Constructor.
+	 *   Collects all the floor tiles of the maze.
+	 *
+	 * @param maze : maze to place the elements in
+	 * @param random : source of randomness for the placement
+	 */
+	public FreeCellIndex(Maze maze, Random random) {
+
+		this.size = maze.getSize();
+		this.random = random;
+		this.cells = new int[size * size];
+		this.occupied = new long[((size * size) >> 6) + 1];
+
+		for(int x = 0; x < size; x++) {
+			for(int y = 0; y < size; y++) {
+				if(!maze.isWall(x, y)) {
+					cells[count++] = x * size + y;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of floor tiles of the maze.
+	 *
+	 * @return number of floor tiles
+	 */
+	public int getFloorCells() {
+		return count;
+	}
+
+	/**
+	 * Marks the tile (x, y) as occupied, so it won't be handed out.
+	 *
+	 * @param x : X coordinate
+	 * @param y : Y coordinate
+	 */
+	public void occupy(int x, int y) {
+		int cell = x * size + y;
+		occupied[cell >> 6] |= 1L << cell;
+	}
+
+	/**
+	 * Checks if the tile (x, y) is occupied.
+	 *
+	 * @param x : X coordinate
+	 * @param y : Y coordinate
+	 * @return true if occupied
+	 */
+	public boolean isOccupied(int x, int y) {
+		int cell = x * size + y;
+		return (occupied[cell >> 6] & (1L << cell)) != 0;
+	}
+
+	/**
+	 * Takes a random free cell and marks it as occupied.
+	 *
+	 * @return the cell (x * size + y), or -1 if there are no free cells left
+	 */
+	public int take() {
+
+		while(next < count) {
+
+			int pick = next + random.nextInt(count - next);
+			int cell = cells[pick];
+			cells[pick] = cells[next];
+			cells[next++] = cell;
+
+			if((occupied[cell >> 6] & (1L << cell)) == 0) {
+				occupied[cell >> 6] |= 1L << cell;
+				return cell;
+			}
+		}
+
+		return -1;
+	}
+}
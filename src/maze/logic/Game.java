@@ -20,12 +20,22 @@ import maze.io.GameIO;
 
 /**
  * Class that contains the main() function and the game's "main menu".
+ * 
+ * With the arguments "-autosave name", the games are autosaved to the files
+ *   "name.ckpt" and "name.journal", and a game left unfinished is resumed
+ *   by the next one (see maze.io.Autosave).
  */
 public class Game {
 
 	public static void main(String[] args) {
 
-		gameMenu();
+		String autosave = null;
+		
+		if(args.length == 2 && args[0].equals("-autosave")) {
+			autosave = args[1];
+		}
+		
+		gameMenu(autosave);
 
 		System.exit(0);
 	}
@@ -33,8 +43,10 @@ public class Game {
 	/**
 	 * Main menu. Deals with all of the options in the menu (in the graphical interface).
 	 * Allows the player to choose the console.
+	 * 
+	 * @param autosave : name of the autosave files, null if the games aren't autosaved
 	 */
-	private static void gameMenu() {
+	private static void gameMenu(String autosave) {
 		
 		int state = 0;
 		int GRAPHICAL = 1;
@@ -46,8 +58,6 @@ public class Game {
 		EditorWindow editorWindow;
 		InputHandler menuHandler;
 		InputHandler editorHandler;
-		Thread inputMenuThread;
-		Thread inputEditorThread;
 		
 		game = null;
 		menuHandler = null;
@@ -63,9 +73,6 @@ public class Game {
 			menuWindow = new MenuWindow("Menu");
 			menuHandler = new InputHandler(menuWindow);
 			
-			inputMenuThread = new Thread(menuHandler);
-			inputMenuThread.start();
-			
 			mode = GRAPHICAL;
 			
 			break;
@@ -95,6 +102,11 @@ public class Game {
 					menuHandler.removeCommand();
 				}
 				
+				// The program is stopping.
+				if(innerState == InputHandler.INTERRUPTED) {
+					innerState = 4;
+				}
+				
 				switch(innerState) {
 				/*	___________________________________________
 				 * 
@@ -105,6 +117,10 @@ public class Game {
 					menuWindow.setVisible(false);
 					
 					game = new GameLogic(mode);
+					
+					if(game.getConfig() != null) {
+						game.getConfig().setAutosave(autosave);
+					}
 
 					do {
 						if(game.isValid()) {
@@ -135,9 +151,7 @@ public class Game {
 						editorWindow.setVisible(true);
 						editorWindow.paint();
 
-						editorHandler = new InputHandler(editorWindow);		
-						inputEditorThread = new Thread(editorHandler);
-						inputEditorThread.start();
+						editorHandler = new InputHandler(editorWindow);
 
 						value = -1;
 						
@@ -149,6 +163,11 @@ public class Game {
 								editorHandler.removeCommand();
 							}
 
+							// The program is stopping: the editor is closed, as if quit.
+							if(value == InputHandler.INTERRUPTED) {
+								value = 3;
+							}
+
 							switch(value) {
 							case 1:
 								// SAVE
@@ -215,7 +234,10 @@ public class Game {
 			}
 			else {
 				do {
-					game = new GameLogic(new GameConfig(mode));
+					GameConfig config = new GameConfig(mode);
+					config.setAutosave(autosave);
+					
+					game = new GameLogic(config);
 					game.init();
 					state = game.loop();
 				}while(state == NEW_GAME);
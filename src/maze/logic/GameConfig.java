@@ -23,8 +23,32 @@ public class GameConfig implements Serializable {
 	
 	private int CONSOLE = 0;
 
+	// Mode with no input nor output at all (the game is played through GameLogic.step()).
+	public static final int HEADLESS = 2;
+
 	private int mode;
 	
+	// Maze generators.
+	public static final int SEQUENTIAL_GENERATOR = 0;
+	public static final int PARALLEL_GENERATOR = 1;
+	
+	private int mazeGenerator = SEQUENTIAL_GENERATOR;
+	
+	// Dragon storage.
+	public static final int OBJECT_DRAGONS = 0;
+	public static final int ARRAY_DRAGONS = 1;
+	
+	private int dragonStorage = OBJECT_DRAGONS;
+	
+	// Threads used to update the dragons (1 - one after the other).
+	private int dragonThreads = 1;
+	
+	// Seed of the games (0 - a random seed for each game).
+	private long seed;
+	
+	// Name of the autosave files (null - no autosave), see maze.io.Autosave.
+	private String autosave;
+	
 	// KeyCodes
 	// For now: W,D,S,A,SPACE -> UP,RIGHT,DOWN,LEFT,EAGLE
 	private int gameKeyCodes[] = {87, 68, 83, 65, 32};
@@ -107,6 +131,11 @@ public class GameConfig implements Serializable {
 		this.difficulty = c.difficulty;
 		this.dragonPerc = c.dragonPerc;
 		this.gameKeyCodes = c.getGameKeyCodes();
+		this.mazeGenerator = c.mazeGenerator;
+		this.dragonStorage = c.dragonStorage;
+		this.dragonThreads = c.dragonThreads;
+		this.seed = c.seed;
+		this.autosave = c.autosave;
 	}
 
 	/**
@@ -350,6 +379,7 @@ public class GameConfig implements Serializable {
 	 * Gets the mode of the configuration:
 	 *   0 - CONSOLE
 	 *   1 - GRAPHICAL
+	 *   2 - HEADLESS
 	 *   
 	 * @return mode of this configuration
 	 */
@@ -384,4 +414,102 @@ public class GameConfig implements Serializable {
 		this.mazeDragons = mazeDragons;
 	}
 
+	/**
+	 * Gets the generator used for new mazes:
+	 *   0 - SEQUENTIAL_GENERATOR
+	 *   1 - PARALLEL_GENERATOR (for huge mazes)
+	 * 
+	 * @return the maze generator of this configuration
+	 */
+	public int getMazeGenerator() {
+		return mazeGenerator;
+	}
+
+	/**
+	 * Sets the generator used for new mazes.
+	 * 
+	 * @param mazeGenerator : value to set
+	 */
+	public void setMazeGenerator(int mazeGenerator) {
+		this.mazeGenerator = mazeGenerator;
+	}
+
+	/**
+	 * Gets how the dragons of new games are kept:
+	 *   0 - OBJECT_DRAGONS (one Dragon per dragon)
+	 *   1 - ARRAY_DRAGONS (a DragonStore, for hundreds of thousands of dragons)
+	 * 
+	 * @return the dragon storage of this configuration
+	 */
+	public int getDragonStorage() {
+		return dragonStorage;
+	}
+
+	/**
+	 * Sets how the dragons of new games are kept.
+	 * 
+	 * @param dragonStorage : value to set
+	 */
+	public void setDragonStorage(int dragonStorage) {
+		this.dragonStorage = dragonStorage;
+	}
+
+	/**
+	 * Gets the number of threads used to update the dragons.
+	 *   With more than 1, the dragons plan their moves concurrently (see ParallelDragonUpdater);
+	 *   the game is the same whatever the number of threads.
+	 * 
+	 * @return the number of threads
+	 */
+	public int getDragonThreads() {
+		return dragonThreads;
+	}
+
+	/**
+	 * Sets the number of threads used to update the dragons.
+	 * 
+	 * @param dragonThreads : value to set
+	 */
+	public void setDragonThreads(int dragonThreads) {
+		this.dragonThreads = dragonThreads;
+	}
+
+	/**
+	 * Gets the seed of the games created with this configuration.
+	 *   Two games with the same seed and the same commands are equal.
+	 * 
+	 * @return the seed (0 if every game has a random seed)
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Sets the seed of the games created with this configuration.
+	 * 
+	 * @param seed : value to set (0 for a random seed)
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Gets the name of the files the games are autosaved to.
+	 *   An autosaved game is resumed by the next game started with the same name.
+	 * 
+	 * @return the name (without extension), null if the games aren't autosaved
+	 */
+	public String getAutosave() {
+		return autosave;
+	}
+
+	/**
+	 * Sets the name of the files the games are autosaved to.
+	 * 
+	 * @param autosave : value to set (null for no autosave)
+	 */
+	public void setAutosave(String autosave) {
+		this.autosave = autosave;
+	}
+
 }
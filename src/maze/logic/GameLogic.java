@@ -1,18 +1,20 @@
 package maze.logic;
 
-import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 
-import javax.swing.JFileChooser;
-import javax.swing.JOptionPane;
-import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.SwingUtilities;
 
 import maze.cli.Input;
 import maze.cli.Output;
 import maze.gui.ConfigurationWindow;
 import maze.gui.GameWindow;
 import maze.gui.InputHandler;
+import maze.io.Autosave;
+import maze.io.BackgroundSaver;
 import maze.io.GameIO;
+import maze.io.SaveListener;
+import maze.perf.InputLatency;
 
 /**
  * Core class. Contains all the game logic and objects that the main game uses.
@@ -27,16 +29,39 @@ public class GameLogic extends Object implements Serializable {
 	private Hero hero;
 	private Eagle eagle;
 	private Dragon[] dragons;
+	private DragonStore dragonStore;
 	private Element sword;
 	
 	private GameConfig config;
 	
 	private Task[] tasks;
+	
+	private GameRandom random;
+	
+	private transient FreeCellIndex freeCells;
+	
+	private transient OccupancyGrid occupancy;
+	
+	private transient ParallelDragonUpdater dragonUpdater;
+	
+	private transient BoardCompositor compositor;
+	
+	private transient BackgroundSaver saver;
+	
+	private transient Autosave autosave;
+	
+	// The player was told the game isn't autosaved (see tellAutosave()).
+	private transient boolean autosaveFailing;
 
 	private boolean valid = true;
 	
 	private int CONSOLE = 0;
 	private int GRAPHICAL = 1;
+	
+	// Outcomes of a turn (see step()).
+	public static final int PLAYING = 0;
+	public static final int WON = 1;
+	public static final int LOST = 2;
 
 	private Input in;
 	private Output out;
@@ -46,9 +71,6 @@ public class GameLogic extends Object implements Serializable {
 	
 	private transient InputHandler inputHandler;
 	private transient InputHandler configHandler;
-	
-	private transient Thread inputThread;
-	private transient Thread inputConfigThread;
 
 	/** 
 	 * Default GameLogic constructor.
@@ -91,8 +113,6 @@ public class GameLogic extends Object implements Serializable {
 			configWindow = new ConfigurationWindow("Configuraes", config);
 			
 			configHandler = new InputHandler(configWindow);
-			inputConfigThread = new Thread(configHandler);
-			inputConfigThread.start();
 			
 			if(getConfiguration(false) != 0) {
 				this.valid = false;
@@ -105,9 +125,21 @@ public class GameLogic extends Object implements Serializable {
 
 	/**
 	 * Initializes all game parameters related to the maze.
+	 *   If the games are autosaved and there is one to resume, it is resumed instead.
 	 */
 	public void init() {
 		
+		if(resumeAutosave()) {
+			return;
+		}
+		
+		if(config.getSeed() != 0) {
+			random = new GameRandom(config.getSeed());
+		}
+		else {
+			random = new GameRandom();
+		}
+		
 		if(configWindow != null) {
 			if(configWindow.getMazeFile() != null) {
 				loadMaze(this, configWindow.getMazeFile());
@@ -129,34 +161,18 @@ public class GameLogic extends Object implements Serializable {
 				
 				config.setMazeDragons((int) (config.getMazeSize() * config.getMazeSize() * config.getDragonPerc()));
 				
-				maze = new Maze(config.getMazeSize());
-				maze.generate();
-				
-				hero = new Hero(this);
-				eagle = new Eagle(hero.getX(), hero.getY(), 'V');
-				sword = new Element(this, 'E');
-				
-				dragons = new Dragon[config.getMazeDragons()];
-				for(int i = 0; i < dragons.length; i++) {
-					dragons[i] = new Dragon(this);
-				}
+				generateMaze();
+			
+				placeElements();
 			}
 		}
 		else {
 			
 			config.setMazeDragons((int) (config.getMazeSize() * config.getMazeSize() * config.getDragonPerc()));
 					
-			maze = new Maze(config.getMazeSize());
-			maze.generate();
+			generateMaze();
 			
-			hero = new Hero(this);
-			eagle = new Eagle(hero.getX(), hero.getY(), 'V');
-			sword = new Element(this, 'E');
-			
-			dragons = new Dragon[config.getMazeDragons()];
-			for(int i = 0; i < dragons.length; i++) {
-				dragons[i] = new Dragon(this);
-			}
+			placeElements();
 		}
 		
 		
@@ -165,6 +181,81 @@ public class GameLogic extends Object implements Serializable {
 		tasks = new Task[3];
 
 		createTasks();
+		
+		startAutosave();
+	}
+
+	/**
+	 * Generates a new maze, with the size and generator of the current configuration.
+	 */
+	private void generateMaze() {
+		
+		maze = new Maze(config.getMazeSize());
+		
+		if(config.getMazeGenerator() == GameConfig.PARALLEL_GENERATOR) {
+			
+			// Its threads are only needed while the maze is carved.
+			ParallelMazeGenerator generator = new ParallelMazeGenerator();
+			maze.setGenerator(generator);
+			
+			try {
+				maze.generate(random.forMaze());
+			}
+			finally {
+				generator.shutdown();
+			}
+			return;
+		}
+		
+		maze.generate(random.forMaze());
+	}
+
+	/**
+	 * Places the hero, the eagle, the sword and the dragons on random free cells
+	 *   of the maze (each cell is taken from a FreeCellIndex, so placing is linear).
+	 * 
+	 * @throws IllegalStateException if the maze hasn't enough free cells for all of them
+	 */
+	private void placeElements() {
+		
+		freeCells = new FreeCellIndex(maze, random.forPlacement());
+		
+		// Hero (the eagle starts with him), sword and dragons.
+		int needed = 2 + config.getMazeDragons();
+		int floor = freeCells.getFloorCells();
+		if(needed > floor) {
+			freeCells = null;
+			throw new IllegalStateException("The maze has " + floor + " free cells, but " + needed
+					+ " are needed (hero, sword and " + config.getMazeDragons() + " dragons): lower the dragon percentage");
+		}
+		
+		hero = new Hero(this);
+		eagle = new Eagle(hero.getX(), hero.getY(), 'V');
+		sword = new Element(this, 'E');
+		
+		if(config.getDragonStorage() == GameConfig.ARRAY_DRAGONS) {
+			
+			dragons = null;
+			dragonStore = new DragonStore(maze.getSize(), config.getMazeDragons());
+			
+			for(int i = 0; i < config.getMazeDragons(); i++) {
+				int cell = freeCells.take();
+				dragonStore.place(i, cell / maze.getSize(), cell % maze.getSize(), random.forDragon(i));
+			}
+		}
+		else {
+			
+			dragonStore = null;
+			dragons = new Dragon[config.getMazeDragons()];
+			
+			for(int i = 0; i < dragons.length; i++) {
+				dragons[i] = new Dragon(this);
+				dragons[i].setRandom(random.forDragon(i));
+			}
+		}
+		
+		freeCells = null;
+		occupancy = null;
 	}
 
 	/**
@@ -180,12 +271,8 @@ public class GameLogic extends Object implements Serializable {
 			gameWindow.setVisible(true);
 			
 			inputHandler = new InputHandler(gameWindow);
-			inputThread = new Thread(inputHandler);
-			inputThread.start();
 			
 			configHandler = new InputHandler(configWindow);
-			inputConfigThread = new Thread(configHandler);
-			inputConfigThread.start();
 		}
 	}
 
@@ -201,14 +288,16 @@ public class GameLogic extends Object implements Serializable {
 	 * @return true if all dragons are dead
 	 */
 	public boolean allDragonsAreDead() {
-
-		for(Dragon dragon: dragons) {
-			if(dragon.isAlive()) {
-				return false;
-			}	
+		
+		if(dragonStore != null) {
+			return dragonStore.allDead();
+		}
+		
+		if(dragons == null) {
+			return true;
 		}
 
-		return true;
+		return getOccupancy().getAliveCount() == 0;
 	}
 
 	/**
@@ -217,16 +306,12 @@ public class GameLogic extends Object implements Serializable {
 	 * @return true if any dragon is upon a sword
 	 */
 	public boolean noDragonIsUponSword() {
-
-		for(Dragon dragon: dragons) {
-			if(dragon != null) {
-				if(dragon.hasSword()) {
-					return false;
-				}
-			}
+		
+		if(dragonStore != null) {
+			return !dragonStore.anyHasSword();
 		}
 
-		return true;
+		return getOccupancy().getSwordCarrier() == null;
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++	//
@@ -301,6 +386,53 @@ public class GameLogic extends Object implements Serializable {
 		return in.get();
 	}
 	
+	/**
+	 * Plays one turn, with no input nor output: moves the dragons, executes
+	 *   the hero command, then updates the eagle, the hero and the tasks.
+	 * 
+	 * @param command : hero command (0,1,2,3 - UP,RIGHT,DOWN,LEFT; 4 - EAGLE)
+	 * @return outcome of the turn: PLAYING, WON or LOST
+	 */
+	public int step(int command) {
+		
+		// Journaled before it is played (see Autosave).
+		if(autosave != null) {
+			try {
+				// The game isn't whole on the disk: a new checkpoint is tried.
+				if(autosave.isRetryDue()) {
+					autosave.checkpoint(this);
+				}
+				autosave.record(this, command);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		
+		updateAllDragons();
+		
+		runCommand(command);
+		
+		if(eagle != null) {
+			eagle.update(this);
+		}
+		
+		hero.update(this);
+		
+		if(tasks != null) {
+			checkTasks();
+		}
+		
+		if(hero.hasWon()) {
+			return WON;
+		}
+		
+		if(!hero.isAlive()) {
+			return LOST;
+		}
+		
+		return PLAYING;
+	}
+
 	/** 
 	 * Executes a hero command (receives a command - after it has been converted from keycode - and executes the order).
 	 * 
@@ -343,47 +475,21 @@ public class GameLogic extends Object implements Serializable {
 	 * Generates a board with the complete maze and all the elements.
 	 */
 	public void setGameBoard() {
-
-		// Get board without elements.
-		for(int i = 0; i < maze.getSize(); i++) {
-			for(int j = 0; j < maze.getSize(); j++) {
-				board[i][j] = maze.getTiles()[i][j];
-			}
-		}
-
-		// Includes exit.
-		if(maze != null && maze.getExit() != null) {
-			board[maze.getExit().getX()][maze.getExit().getY()] = maze.getExit().getSymbol();
-		}
-
-		// Includes hero.
-		if(hero != null) {
-			board[hero.getX()][hero.getY()] = hero.getSymbol();
-		}
-
-		// Includes eagle.
-		if((eagle != null) && !hero.hasEagle() && eagle.isAlive()) {
-			board[eagle.getX()][eagle.getY()] = eagle.getSymbol();
-		}
-
-		// Includes all dragons.
-		if(dragons != null) {
-			for(Dragon dragon: dragons) {
-				if(dragon != null) {
-					if(dragon.isAlive()) board[dragon.getX()][dragon.getY()] = dragon.getSymbol();
-				}
-			}
-		}
-		// Includes sword.
-		if(sword != null) {
-			if((hero != null) && (eagle != null)) {
-				if(!hero.hasSword() && noDragonIsUponSword() && !eagle.hasSword()) {
-					board[sword.getX()][sword.getY()] = sword.getSymbol();
-				}
-			}
-
+		
+		if(compositor == null) {
+			compositor = new BoardCompositor();
 		}
-
+		
+		compositor.compose(this, board);
+	}
+	
+	/**
+	 * Gets the cells of the board changed by the last setGameBoard().
+	 * 
+	 * @return the BoardCompositor of the board, or null if the board was never set
+	 */
+	public BoardCompositor getBoardChanges() {
+		return compositor;
 	}
 
 	/**
@@ -391,7 +497,21 @@ public class GameLogic extends Object implements Serializable {
 	 * For more info consult the methods.
 	 */
 	public void updateAllDragons() {
-		if(dragons != null) {
+		if(config != null && config.getDragonThreads() > 1) {
+			
+			if(dragonUpdater == null || dragonUpdater.getParallelism() != config.getDragonThreads()) {
+				if(dragonUpdater != null) {
+					dragonUpdater.shutdown();
+				}
+				dragonUpdater = new ParallelDragonUpdater(config.getDragonThreads());
+			}
+			
+			dragonUpdater.update(this);
+		}
+		else if(dragonStore != null) {
+			dragonStore.update(this);
+		}
+		else if(dragons != null) {
 			for(Dragon dragon: dragons) {
 				dragon.update(this);
 			}
@@ -409,19 +529,17 @@ public class GameLogic extends Object implements Serializable {
 		if(disableLoad) configWindow.setLoadDisabled(true);
 		configWindow.setVisible(true);
 
-		int state = -1;
-
-		do {
-			state = configHandler.getNextCommand();
-		}while(state == -1);
+		int state = configHandler.getNextCommand();
 
-		configHandler.removeCommand();
+		if(state != InputHandler.INTERRUPTED) {
+			configHandler.removeCommand();
+		}
 
 		if(disableLoad) configWindow.setLoadDisabled(false);
 		configWindow.setVisible(false);
 		
 
-		if(state == 2) { // ERROR
+		if(state == 2 || state == InputHandler.INTERRUPTED) { // ERROR, or the program is stopping
 			return 1;
 		}
 
@@ -456,55 +574,66 @@ public class GameLogic extends Object implements Serializable {
 		} else if(config.getMode() == GRAPHICAL) {
 			gameWindow.paint();
 		}
+		tellAutosave();
 
 		// +++++++++++++++++++++++++++++++++++++
 		//				Begin Loop
 		// +++++++++++++++++++++++++++++++++++++
 		while(hero.isAlive() && !done) {
 			
+			// Time the command was given at (see InputLatency).
+			long captured;
+			
 			if(config.getMode() == GRAPHICAL) {
 				command = inputHandler.getNextCommand();
+				captured = inputHandler.getCommandTime();
+				
+				// The program is stopping: the game is left as it is (it can be resumed).
+				if(command == InputHandler.INTERRUPTED) {
+					done = true;
+					break;
+				}
 			}
 			else {
 				command = getConsoleInput();
+				captured = System.nanoTime();
 			}
 
 			if(getCurrentCommand(command) >= 0) {
 
 				if(config.getMode() == GRAPHICAL) {
+					InputLatency.record(InputLatency.QUEUE, captured);
 					inputHandler.removeCommand();
 				}
 
-				updateAllDragons();
-				
-				runCommand(getCurrentCommand(command));
-				
-				eagle.update(this);
-
-				hero.update(this);
-
-				checkTasks();
+				long start = System.nanoTime();
+				int outcome = step(getCurrentCommand(command));
+				InputLatency.record(InputLatency.STEP, start);
 				
-				if(hero.hasWon()) {
+				if(outcome == WON) {
 					done = true;
 					break;
 				}
 				
+				start = System.nanoTime();
 				setGameBoard();
+				InputLatency.record(InputLatency.BOARD, start);
 				
 				if(config.getMode() == CONSOLE) {
+					start = System.nanoTime();
 					out.draw(this);
+					InputLatency.record(InputLatency.PAINT, start);
+					InputLatency.record(InputLatency.TOTAL, captured);
 				} else if(config.getMode() == GRAPHICAL) {
-					gameWindow.paint();
+					gameWindow.paintChanges(captured);
 				}
+				tellAutosave();
 
 			}
 			else {
 				if(config.getMode() == GRAPHICAL) {
 					
-					if(command != -1) {
-						inputHandler.removeCommand();
-					}
+					inputHandler.removeCommand();
 					
 					/*
 					 * 			MENU OPTIONS
@@ -536,6 +665,7 @@ public class GameLogic extends Object implements Serializable {
 						 */
 					case 3:
 						if(loadGame() == 0) {
+							startAutosave();
 							gameWindow.paint();
 						}
 						break;
@@ -577,6 +707,15 @@ public class GameLogic extends Object implements Serializable {
 		//				END OF LOOP
 		// +++++++++++++++++++++++++++++++++++++
 		
+		if(saver != null) {
+			saver.finish();
+		}
+		
+		stopThreads();
+		
+		// A game that is over (or left for a new one) isn't resumed.
+		stopAutosave(!hero.isAlive() || hero.hasWon() || (config.getMode() == GRAPHICAL && command == 1));
+		
 		if(config.getMode() == GRAPHICAL) {
 			gameWindow.paint();
 			inputHandler.setTerminate(true);
@@ -587,12 +726,7 @@ public class GameLogic extends Object implements Serializable {
 			this.config.setMazeSize(configWindow.getConfig().getMazeSize());
 			
 			if(command > 5) {
-				if(hero.hasWon()) {
-					JOptionPane.showMessageDialog(gameWindow, "You won!");
-				}
-				else {
-					JOptionPane.showMessageDialog(gameWindow, "Game Over!");
-				}
+				gameWindow.showGameOver(hero.hasWon());
 			}
 			
 			gameWindow.dispose();
@@ -637,15 +771,12 @@ public class GameLogic extends Object implements Serializable {
 	 */
 	public int loadGame() {
 		GameIO gameIO = new GameIO();
-		JFileChooser fileChooser = new JFileChooser();
-		FileNameExtensionFilter filter = new FileNameExtensionFilter(".sav files", new String[] {"sav"});
-		fileChooser.setFileFilter(filter);
-		fileChooser.setCurrentDirectory(new File( "." ));
+		String fileName = gameWindow.chooseFileToLoad();
 		
-		if (fileChooser.showOpenDialog(gameWindow) == JFileChooser.APPROVE_OPTION) {
-
-			String fileName = fileChooser.getSelectedFile().getName();
+		if (fileName != null) {
+			String name = config.getAutosave();
 			gameIO.loadGame(this, fileName);
+			config.setAutosave(name);
 		}
 		else {
 			return -1;
@@ -655,22 +786,32 @@ public class GameLogic extends Object implements Serializable {
 	}
 
 	/**
-	 * Creates an instance of GameIO to save the game.
-	 * For more information on GameIO consult the class.
+	 * Saves the game in the background (the game goes on while it is written).
+	 * For more information consult BackgroundSaver.
 	 * 
 	 * @return 0 if the user has pressed the 'save' button
 	 */
 	public int saveGame() {
-		GameIO gameIO = new GameIO();
-		JFileChooser fileChooser = new JFileChooser();
-		FileNameExtensionFilter filter = new FileNameExtensionFilter(".sav files", new String[] {"sav"});
-		fileChooser.setFileFilter(filter);
-		fileChooser.setCurrentDirectory(new File( "." ));
+		String fileName = gameWindow.chooseFileToSave();
 		
-		if (fileChooser.showSaveDialog(gameWindow) == JFileChooser.APPROVE_OPTION) {
+		if (fileName != null) {
+			if(saver == null) {
+				saver = new BackgroundSaver();
+			}
 			
-			String fileName = fileChooser.getSelectedFile().getName();
-			gameIO.save(this, fileName, ".sav");
+			// Told on the thread of the saver: handed to the window.
+			final GameWindow window = gameWindow;
+			
+			saver.save(this, fileName, ".sav", new SaveListener() {
+				public void saved(String fileName) {
+					showSaveResult(window, fileName, null);
+				}
+				
+				public void failed(String fileName, IOException e) {
+					e.printStackTrace();
+					showSaveResult(window, fileName, e);
+				}
+			});
 		}
 		else {
 			return -1;
@@ -678,6 +819,207 @@ public class GameLogic extends Object implements Serializable {
 		
 		return 0;
 	}
+	
+	/**
+	 * Tells the user, in the window, how a background save went.
+	 */
+	private static void showSaveResult(final GameWindow window, final String fileName, final IOException error) {
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				window.showSaveResult(fileName, error);
+			}
+		});
+	}
+	
+	/**
+	 * Resumes the autosaved game, if the games are autosaved and there is one.
+	 *   The game keeps the mode and autosave name it was started with.
+	 * 
+	 * @return true if a game was resumed
+	 */
+	private boolean resumeAutosave() {
+		
+		String name = config.getAutosave();
+		int mode = config.getMode();
+		
+		if(name == null) {
+			return false;
+		}
+		
+		Autosave resumed = new Autosave(name);
+		int replayed;
+		
+		try {
+			replayed = resumed.resume(this);
+		} catch (IOException e) {
+			e.printStackTrace();
+			replayed = -1;
+		}
+		
+		// Loading the checkpoint brings its configuration.
+		config.setAutosave(name);
+		config.setMode(mode);
+		
+		if(replayed < 0) {
+			return false;
+		}
+		
+		// The commands replayed ended the game (the program stopped before it
+		// was discarded): it isn't resumed, a new one is started.
+		if(!hero.isAlive() || hero.hasWon()) {
+			try {
+				resumed.discard();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			return false;
+		}
+		
+		if(board == null) {
+			board = new char[maze.getSize()][maze.getSize()];
+		}
+		
+		autosave = resumed;
+		
+		return true;
+	}
+	
+	/**
+	 * Starts autosaving the game (if the games are autosaved), from a checkpoint of it as it is.
+	 */
+	private void startAutosave() {
+		
+		if(autosave == null) {
+			if(config.getAutosave() == null) {
+				return;
+			}
+			autosave = new Autosave(config.getAutosave());
+		}
+		
+		// If it fails, it is tried again later (see Autosave.isRetryDue()).
+		try {
+			autosave.checkpoint(this);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Tells the player if the game can't be autosaved (and so can't be resumed
+	 *   as it is if the program stops): under the board on the console, every
+	 *   turn; in a message of the window when it begins, and when it ends.
+	 */
+	private void tellAutosave() {
+		
+		final IOException failure = (autosave == null) ? null : autosave.getFailure();
+		
+		if(config.getMode() == CONSOLE) {
+			if(failure != null) {
+				out.drawMsg(9);
+			}
+		}
+		else if(config.getMode() == GRAPHICAL && (failure != null) != autosaveFailing) {
+			final GameWindow window = gameWindow;
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					window.showAutosaveFailure(failure);
+				}
+			});
+		}
+		
+		autosaveFailing = (failure != null);
+	}
+	
+	/**
+	 * Shuts down the threads the dragons are planned on (see ParallelDragonUpdater),
+	 *   eg: when the game ends. They are started again if the game goes on.
+	 */
+	public void stopThreads() {
+		
+		if(dragonUpdater != null) {
+			dragonUpdater.shutdown();
+			dragonUpdater = null;
+		}
+	}
+	
+	/**
+	 * Stops autosaving the game, keeping its files so that it can be resumed,
+	 *   or deleting them.
+	 * 
+	 * @param discard : true to delete the files (eg: the game is over)
+	 */
+	public void stopAutosave(boolean discard) {
+		
+		if(autosave == null) {
+			return;
+		}
+		
+		try {
+			if(discard) {
+				autosave.discard();
+			}
+			else {
+				autosave.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		autosave = null;
+	}
+	
+	/**
+	 * Takes a copy of what is saved of the game (see GameIO): configuration,
+	 *   randomness, maze, hero, eagle, sword, dragons and tasks (not the board).
+	 *   The copy shares nothing with this game, so it can be saved on another
+	 *   thread while this game goes on.
+	 * 
+	 * @return the copy
+	 */
+	public GameLogic snapshot() {
+		
+		GameLogic copy = new GameLogic();
+		
+		copy.valid = valid;
+		
+		if(config != null) {
+			copy.config = new GameConfig(config);
+			copy.config.setGameKeyCodes(config.getGameKeyCodes().clone());
+		}
+		if(random != null) {
+			copy.random = new GameRandom(random);
+		}
+		if(maze != null) {
+			copy.maze = new Maze(maze);
+		}
+		if(hero != null) {
+			copy.hero = new Hero(hero);
+		}
+		if(eagle != null) {
+			copy.eagle = new Eagle(eagle);
+		}
+		if(sword != null) {
+			copy.sword = new Element(sword);
+		}
+		
+		if(dragonStore != null) {
+			copy.dragonStore = new DragonStore(dragonStore);
+		}
+		else if(dragons != null) {
+			copy.dragons = new Dragon[dragons.length];
+			for(int i = 0; i < dragons.length; i++) {
+				copy.dragons[i] = (dragons[i] == null) ? null : new Dragon(dragons[i]);
+			}
+		}
+		
+		if(tasks != null) {
+			copy.tasks = new Task[tasks.length];
+			for(int i = 0; i < tasks.length; i++) {
+				copy.tasks[i] = (tasks[i] == null) ? null : new Task(tasks[i]);
+			}
+		}
+		
+		return copy;
+	}
 
 	/**
 	 * Gets the game instance of [maze].
@@ -695,6 +1037,7 @@ public class GameLogic extends Object implements Serializable {
 	 */
 	public void setMaze(Maze maze) {
 		this.maze = maze;
+		this.occupancy = null;
 	}
 	
 	/**
@@ -757,8 +1100,70 @@ public class GameLogic extends Object implements Serializable {
 	 * @return the dragons
 	 */
 	public Dragon[] getDragons() {
+		if(dragonStore != null) {
+			return dragonStore.getDragons();
+		}
 		return dragons;
 	}
+	
+	/**
+	 * Gets the dragon at the given index of the array [dragons].
+	 * 
+	 * @param index : index of the dragon
+	 * @return the dragon
+	 */
+	public Dragon getDragon(int index) {
+		if(dragonStore != null) {
+			return dragonStore.getDragon(index);
+		}
+		return dragons[index];
+	}
+	
+	/**
+	 * Gets the number of dragons (alive or dead).
+	 * 
+	 * @return number of dragons
+	 */
+	public int getDragonCount() {
+		if(dragonStore != null) {
+			return dragonStore.getCount();
+		}
+		return (dragons == null) ? 0 : dragons.length;
+	}
+	
+	/**
+	 * Kills the dragon at the given index.
+	 * 
+	 * @param index : index of the dragon
+	 */
+	public void killDragon(int index) {
+		if(dragonStore != null) {
+			dragonStore.kill(index);
+		}
+		else {
+			dragons[index].die();
+		}
+	}
+	
+	/**
+	 * Gets the store that keeps the dragons, if the game keeps them in arrays.
+	 * 
+	 * @return the DragonStore, or null if the game uses Dragon objects
+	 */
+	public DragonStore getDragonStore() {
+		return dragonStore;
+	}
+
+	/**
+	 * Sets the store that keeps the dragons (the game then keeps them in arrays).
+	 * 
+	 * @param dragonStore : parameter to be set
+	 */
+	public void setDragonStore(DragonStore dragonStore) {
+		this.dragons = null;
+		this.dragonStore = dragonStore;
+		this.occupancy = null;
+	}
 
 	/**
 	 * Sets the array [dragons].
@@ -767,6 +1172,82 @@ public class GameLogic extends Object implements Serializable {
 	 */
 	public void setDragons(Dragon[] dragons) {
 		this.dragons = dragons;
+		this.dragonStore = null;
+		this.occupancy = null;
+	}
+	
+	/**
+	 * Gets the grid of the tiles occupied by the dragons.
+	 *   It is built (from the current maze and dragons) the first time it is needed
+	 *   after either of them is set, and the dragons keep it up to date afterwards.
+	 * 
+	 * @return the OccupancyGrid of the game
+	 */
+	public OccupancyGrid getOccupancy() {
+		if(occupancy == null) {
+			occupancy = new OccupancyGrid((maze == null) ? 0 : maze.getSize(), dragons);
+		}
+		return occupancy;
+	}
+	
+	/**
+	 * Gets the alive dragon at the position (x, y).
+	 * 
+	 * @param x : X coordinate
+	 * @param y : Y coordinate
+	 * @return the dragon at (x, y), or null if none
+	 */
+	public Dragon dragonAt(int x, int y) {
+		
+		int index = dragonIndexAt(x, y);
+		
+		return (index < 0) ? null : getDragon(index);
+	}
+	
+	/**
+	 * Gets the index of the alive dragon at the position (x, y).
+	 * 
+	 * @param x : X coordinate
+	 * @param y : Y coordinate
+	 * @return the index of the dragon at (x, y), or -1 if none
+	 */
+	public int dragonIndexAt(int x, int y) {
+		if(dragonStore != null) {
+			return dragonStore.indexAt(x, y);
+		}
+		return getOccupancy().indexAt(x, y);
+	}
+
+	/**
+	 * Gets the index of free cells used to place the elements.
+	 *   Only exists while the game is being set up (null otherwise).
+	 * 
+	 * @return the FreeCellIndex, or null
+	 */
+	public FreeCellIndex getFreeCells() {
+		return freeCells;
+	}
+
+	/**
+	 * Gets the source of all the randomness of the game.
+	 *   If the game has none (eg: it was built piece by piece), one with a random seed is created.
+	 * 
+	 * @return the GameRandom of the game
+	 */
+	public GameRandom getRandom() {
+		if(random == null) {
+			random = new GameRandom();
+		}
+		return random;
+	}
+
+	/**
+	 * Sets the source of all the randomness of the game.
+	 * 
+	 * @param random : GameRandom to set
+	 */
+	public void setRandom(GameRandom random) {
+		this.random = random;
 	}
 	
 	/**
@@ -0,0 +1,158 @@
+package maze.logic;
+
+import java.io.Serializable;
+
+/**
+ * Class that provides all the randomness of a game.
+ *
+ * Every random decision of the game comes from a stream derived from a
+ *   single seed, so a whole game can be reproduced from its seed:
+ *   - the maze stream (exit and walls generation);
+ *   - the placement stream (initial position of the elements);
+ *   - one stream per dragon (sleep and movement), see forDragon().
+ *   Each stream is created once and owned by its user, so no stream is
+ *   shared between threads and nothing is allocated on every tick.
+ *
+ * This class implements serializable, has it is used upon game saving.
+ *
+ * @see RandomStream
+ */
+public class GameRandom implements Serializable {
+
+	private static final long serialVersionUID = 1;
+
+	private static final long MAZE = -1;
+	private static final long PLACEMENT = -2;
+	private static final long OTHERS = -3;
+
+	private long seed;
+
+	private RandomStream maze;
+	private RandomStream placement;
+	private RandomStream others;
+
+	/**
+	 * Default Constructor.
+	 *   Uses a random seed.
+	 */
+	public GameRandom() {
+		this(new RandomStream().nextLong());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param seed : seed of the game
+	 */
+	public GameRandom(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Constructor.
+	 *   Recreates the randomness of a saved game, from its seed and streams.
+	 *
+	 * @param seed : seed of the game
+	 * @param maze : maze stream (see forMaze())
+	 * @param placement : placement stream (see forPlacement())
+	 * @param others : stream the split() streams are taken from (see forOthers())
+	 */
+	public GameRandom(long seed, RandomStream maze, RandomStream placement, RandomStream others) {
+		this.seed = seed;
+		this.maze = maze;
+		this.placement = placement;
+		this.others = others;
+	}
+
+	/**
+	 * Copy Constructor.
+	 *   The copy has its own streams, in the same state.
+	 *
+	 * @param r : GameRandom to copy
+	 */
+	public GameRandom(GameRandom r) {
+		this(r.seed, copy(r.maze), copy(r.placement), copy(r.others));
+	}
+
+	/**
+	 * Gets the seed of the game.
+	 *
+	 * @return the seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Gets the stream used to generate the maze.
+	 *
+	 * @return the maze stream
+	 */
+	public RandomStream forMaze() {
+		if(maze == null) {
+			maze = stream(MAZE);
+		}
+		return maze;
+	}
+
+	/**
+	 * Gets the stream used to place the elements in the maze.
+	 *
+	 * @return the placement stream
+	 */
+	public RandomStream forPlacement() {
+		if(placement == null) {
+			placement = stream(PLACEMENT);
+		}
+		return placement;
+	}
+
+	/**
+	 * Creates the stream of the dragon with the given index.
+	 *   The stream only depends on the seed and the index,
+	 *   so it is to be created once and kept by the dragon.
+	 *
+	 * @param index : index of the dragon in the game
+	 * @return the dragon's stream
+	 */
+	public RandomStream forDragon(int index) {
+		return stream(index);
+	}
+
+	/**
+	 * Creates a new stream, for entities without an index
+	 *   (eg: dragons of a custom maze). The streams are handed out
+	 *   in sequence, so they are reproducible if requested in the same order.
+	 *
+	 * @return the new stream
+	 */
+	public RandomStream split() {
+		return forOthers().split();
+	}
+
+	/**
+	 * Gets the stream the split() streams are taken from.
+	 *
+	 * @return the others stream
+	 */
+	public RandomStream forOthers() {
+		if(others == null) {
+			others = stream(OTHERS);
+		}
+		return others;
+	}
+
+	private static RandomStream copy(RandomStream stream) {
+		return (stream == null) ? null : RandomStream.restore(stream.getState(), stream.getGamma());
+	}
+
+	/**
+	 * Creates the stream with the given id.
+	 *
+	 * @param id : id of the stream
+	 * @return the stream
+	 */
+	private RandomStream stream(long id) {
+		return new RandomStream(RandomStream.mix64(seed ^ RandomStream.mix64(id)));
+	}
+}
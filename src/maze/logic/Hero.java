@@ -57,6 +57,19 @@ public class Hero extends Moveable {
 		this.hasEagle = false;
 		this.won = false;
 	}
+	
+	/**
+	 * Copy Constructor.
+	 * 
+	 * @param h : Hero to copy
+	 */
+	public Hero(Hero h) {
+		
+		super(h);
+		
+		this.hasEagle = h.hasEagle;
+		this.won = h.won;
+	}
 
 	/**
 	 * Gets the value of the parameter [hasEagle].
@@ -117,7 +130,12 @@ public class Hero extends Moveable {
 	 * @see maze.logic.Element#GeneratePos(maze.logic.GameLogic)
 	 */
 	public void GeneratePos(GameLogic game) {
-		Random r = new Random();
+		
+		if(takeFreeCell(game)) {
+			return;
+		}
+		
+		Random r = game.getRandom().forPlacement();
 		
 		int MAX = game.getMaze().getSize();
 		int posX = 0, posY = 0;
@@ -142,7 +160,7 @@ public class Hero extends Moveable {
 	 */
 	protected boolean isValidInitialPosition(GameLogic game, int x, int y) {
 		
-		if(game.getMaze().getTiles()[x][y] == 'x') {
+		if(game.getMaze().isWall(x, y)) {
 			return false;
 		}
 		
@@ -192,14 +210,14 @@ public class Hero extends Moveable {
 		}
 
 		// Checks if hero has found any dragon.
-		if(game.getDragons() != null) {
-			Dragon dragonFound = checkIfFoundAnyDragon(game);
-			if(dragonFound != null) {
+		if(game.getDragonCount() > 0) {
+			int dragonFound = findAnyDragon(game);
+			if(dragonFound >= 0) {
 				if(hasSword) {
-					dragonFound.die();
+					game.killDragon(dragonFound);
 				}
 				else {
-					if(dragonFound.isAwake()) {
+					if(game.getDragon(dragonFound).isAwake()) {
 						die();
 					}
 				}
@@ -210,13 +228,7 @@ public class Hero extends Moveable {
 		//Checks if hero has won the game and sets a flag.
 		if(game.getMaze() != null && game.getMaze().getExit() != null) {
 			if(isAt(game.getMaze().getExit())) {
-				won = true;
-				
-				for(Dragon dragon : game.getDragons()) {
-					if(dragon.isAlive()) {
-						won = false;
-					}
-				}
+				won = game.allDragonsAreDead();
 				
 				if(!won) {
 					moveBack();
@@ -232,24 +244,41 @@ public class Hero extends Moveable {
 	/**
 	 * Returns any instance of Dragon if it has been
 	 *   found by the player (distance between them <= 1).
+	 *   Only the hero's tile and the 4 next to it are looked up; if there
+	 *   are several dragons, the first one (in the dragons array) is returned.
 	 * 
 	 * @param game : GameLogic instance of the game
 	 * @return an instance of Dragon if found, null otherwise
 	 */
 	public Dragon checkIfFoundAnyDragon(GameLogic game) {
 		
-		int maxDistance = 1;
-				
-		for(Dragon dragon : game.getDragons()) {
-
-			if(dragon.isAlive() && checkIfFound(dragon, maxDistance)) {
-				
-				return dragon;
-				
+		int found = findAnyDragon(game);
+		
+		return (found < 0) ? null : game.getDragon(found);
+	}
+	
+	/**
+	 * Same as checkIfFoundAnyDragon(), but gives the index of the dragon.
+	 * 
+	 * @param game : GameLogic instance of the game
+	 * @return the index of the dragon found, -1 otherwise
+	 */
+	private int findAnyDragon(GameLogic game) {
+		
+		int dx[] = {0, -1, 0, 1, 0};
+		int dy[] = {0, 0, 1, 0, -1};
+		
+		int found = -1;
+		for(int i = 0; i < dx.length; i++) {
+			
+			int index = game.dragonIndexAt(x + dx[i], y + dy[i]);
+			
+			if(index >= 0 && (found < 0 || index < found)) {
+				found = index;
 			}
-		}	
+		}
 		
-		return null;
+		return found;
 	}
 	
 }
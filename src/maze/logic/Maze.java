@@ -1,25 +1,46 @@
 package maze.logic;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.Random;
-import java.util.Stack;
 
 /**
  * Class that represents all "maze" type objects.
  * 
- * A maze consists, very shortly, in a series of tiles (chars) placed in a matrix.
+ * A maze consists, very shortly, in a series of tiles placed in a matrix.
  *   It has a size (actually, the matrix is SIZExSIZE) an it has an
  *   exit (instance of an Element with the symbol 'S')
  *   
+ * The tiles are either walls ('x') or floor (' '), so they are stored
+ *   one bit per tile (1 - wall) in a flat array of longs, row after row
+ *   (tile (x, y) is the bit x * size + y).
+ *   
  * This class implements serializable, has it is used upon game saving.
  */
-public class Maze implements Serializable {
+public class Maze implements MazeView, Serializable {
 	
 	private static final long serialVersionUID = 1;
-	private char tiles[][];	
+	
+	/*
+	 * [tiles] is the old (char matrix) representation, kept in the serialized form
+	 *   so that games and mazes saved before the bit packing can still be loaded.
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {
+		new ObjectStreamField("size", int.class),
+		new ObjectStreamField("exit", Element.class),
+		new ObjectStreamField("walls", long[].class),
+		new ObjectStreamField("tiles", char[][].class)
+	};
+	
+	private long walls[];
 	private int size;
 	private Element exit;
 	
+	private transient MazeGenerator generator;
+	
 	/**
 	 * Default Constructor.
 	 */
@@ -35,16 +56,29 @@ public class Maze implements Serializable {
 		
 		this.size = size;
 		
-		tiles = new char[size][size];
+		walls = new long[((size * size) >> 6) + 1];
 		
 		exit = new Element('S');
 	}
 	
+	/**
+	 * Generates a random maze (chamber, grid, exit and walls).
+	 */
 	public void generate() {
+		generate(new RandomStream());
+	}
+	
+	/**
+	 * Generates a maze (chamber, grid, exit and walls) with the given
+	 *   source of randomness (same source state, same maze).
+	 * 
+	 * @param random : source of randomness to use
+	 */
+	public void generate(Random random) {
 		SetChamber();
 		DrawGrid();
-		GenerateExit();
-		GenerateWalls();
+		GenerateExit(random);
+		GenerateWalls(random);
 	}
 
 	/**
@@ -55,8 +89,22 @@ public class Maze implements Serializable {
 	 */
 	public Maze(char tiles[][]) {
 
-		this.tiles = tiles;
 		this.size = tiles[0].length;
+		
+		setTiles(tiles);
+	}
+	
+	/**
+	 * Copy Constructor.
+	 *   Copies the tiles and the exit (not the generator).
+	 * 
+	 * @param m : Maze to copy
+	 */
+	public Maze(Maze m) {
+
+		this.size = m.size;
+		this.walls = (m.walls == null) ? null : m.walls.clone();
+		this.exit = (m.exit == null) ? null : new Element(m.exit);
 	}
 	
 	/**
@@ -69,13 +117,110 @@ public class Maze implements Serializable {
 	}
 
 	/**
-	 * Gets the value of the parameter [tiles].
+	 * Gets a copy of the tiles as a char matrix ('x' - wall, ' ' - floor).
+	 *   Changes made to the returned array are not reflected in the maze
+	 *   (use setTile() or setTiles() instead).
 	 * 
 	 * @return the tiles of the game board
 	 */
 	public char[][] getTiles() {
+		
+		char tiles[][] = new char[size][size];
+		
+		for(int i = 0; i < size; i++) {
+			for(int j = 0; j < size; j++) {
+				tiles[i][j] = getTile(i, j);
+			}
+		}
+		
 		return tiles;
 	}
+	
+	/**
+	 * Sets all the tiles from a char matrix.
+	 *   Every tile other than 'x' is considered floor.
+	 * 
+	 * @param tiles : array of chars representing the maze
+	 */
+	public void setTiles(char tiles[][]) {
+		
+		walls = new long[((size * size) >> 6) + 1];
+		
+		for(int i = 0; i < size; i++) {
+			for(int j = 0; j < size; j++) {
+				if(tiles[i][j] == 'x') {
+					int bit = i * size + j;
+					walls[bit >> 6] |= 1L << bit;
+				}
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see maze.logic.MazeView#isWall(int, int)
+	 */
+	@Override
+	public boolean isWall(int x, int y) {
+		int bit = x * size + y;
+		return (walls[bit >> 6] & (1L << bit)) != 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see maze.logic.MazeView#getTile(int, int)
+	 */
+	@Override
+	public char getTile(int x, int y) {
+		return isWall(x, y) ? 'x' : ' ';
+	}
+
+	/**
+	 * Sets the tile at the position (x, y).
+	 *   Every tile other than 'x' is considered floor.
+	 * 
+	 * @param x : X coordinate
+	 * @param y : Y coordinate
+	 * @param tile : tile to set
+	 */
+	public void setTile(int x, int y, char tile) {
+		int bit = x * size + y;
+		if(tile == 'x') {
+			walls[bit >> 6] |= 1L << bit;
+		}
+		else {
+			walls[bit >> 6] &= ~(1L << bit);
+		}
+	}
+
+	/**
+	 * Gets the packed walls (one bit per tile, row after row).
+	 * 
+	 * @return the array of packed walls
+	 */
+	public long[] getWalls() {
+		return walls;
+	}
+
+	/**
+	 * Gets the generator used to carve the maze walls.
+	 *   If none was set, the default (backtracking) generator is used.
+	 * 
+	 * @return the maze generator
+	 */
+	public MazeGenerator getGenerator() {
+		if(generator == null) {
+			generator = new BacktrackerGenerator();
+		}
+		return generator;
+	}
+
+	/**
+	 * Sets the generator used to carve the maze walls.
+	 * 
+	 * @param generator : maze generator to set
+	 */
+	public void setGenerator(MazeGenerator generator) {
+		this.generator = generator;
+	}
 
 	/**
 	 * Gets the exit of the maze.
@@ -107,10 +252,10 @@ public class Maze implements Serializable {
 	 *   The exit must not be on a corner. 
 	 *   
 	 * The coordinates for the generated exit are stored on the exit array. 
+	 * 
+	 * @param r : source of randomness to use
 	 */
-	public void GenerateExit() {
-		
-		Random r = new Random();
+	public void GenerateExit(Random r) {
 		
 		/*
 		 * 0 - Top
@@ -129,22 +274,22 @@ public class Maze implements Serializable {
 				exit.setX(0);
 				// Can't be at (0, 0) nor (0, N).
 				exit.setY(r.nextInt(size - 2) + 1);
-				if(tiles[exit.getX() + 1][exit.getY()] != 'x') done = true;
+				if(!isWall(exit.getX() + 1, exit.getY())) done = true;
 				break;
 			case 1:
 				exit.setX(r.nextInt(size - 2) + 1);
 				exit.setY(size - 1);
-				if(tiles[exit.getX()][exit.getY() - 1] != 'x') done = true;
+				if(!isWall(exit.getX(), exit.getY() - 1)) done = true;
 				break;
 			case 2: 
 				exit.setX(size - 1);
 				exit.setY(r.nextInt(size - 2) + 1);
-				if(tiles[exit.getX() - 1][exit.getY()] != 'x') done = true;
+				if(!isWall(exit.getX() - 1, exit.getY())) done = true;
 				break;
 			case 3:
 				exit.setX(r.nextInt(size - 2) + 1);
 				exit.setY(0);
-				if(tiles[exit.getX()][exit.getY() + 1] != 'x') done = true;
+				if(!isWall(exit.getX(), exit.getY() + 1)) done = true;
 				break;
 			}
 			
@@ -160,16 +305,16 @@ public class Maze implements Serializable {
 	public void SetChamber() {
 		
 		// Top wall
-		for(int i = 0; i < size; i++) tiles[0][i] = 'x';
+		for(int i = 0; i < size; i++) setTile(0, i, 'x');
 		
 		// Right wall
-		for(int i = 0; i < size; i++) tiles[i][size-1] = 'x';
+		for(int i = 0; i < size; i++) setTile(i, size-1, 'x');
 		
 		// Bottom wall
-		for(int i = 0; i < size; i++) tiles[size-1][i] = 'x';
+		for(int i = 0; i < size; i++) setTile(size-1, i, 'x');
 		
 		// Left wall
-		for(int i = 0; i < size; i++) tiles[i][0] = 'x';
+		for(int i = 0; i < size; i++) setTile(i, 0, 'x');
 		
 	}
 	
@@ -195,8 +340,8 @@ public class Maze implements Serializable {
 		for(int i = 1; i < (size - 1); i++) {
 			for(int j = 1; j < (size - 1); j++) {
 				
-				if(wall && (line || j < (size - 2))) tiles[i][j] = 'x';
-				else tiles[i][j] = ' ';
+				if(wall && (line || j < (size - 2))) setTile(i, j, 'x');
+				else setTile(i, j, ' ');
 				
 				if(!line) wall = !wall;
 				
@@ -212,7 +357,7 @@ public class Maze implements Serializable {
 		/*
 		for(int i = 0; i < size; i++) {
 			for(int j = 0; j < size; j++) {
-				System.out.print(" " + tiles[i][j] + " ");
+				System.out.print(" " + getTile(i, j) + " ");
 			}
 			System.out.println();
 		}
@@ -221,213 +366,40 @@ public class Maze implements Serializable {
 	
 	/**
 	 * Generates the final maze. Takes our pre-created grid and then randomly opens holes in walls.
-	 * Follows the backtracking algorithm.
+	 * The carving itself is done by the maze generator (see setGenerator()).
+	 * 
+	 * @param random : source of randomness to use
 	 */
-	public void GenerateWalls() {
-
-		Random r = new Random();
-
-		// Random direction.
-		/*
-		 * 0 - UP
-		 * 1 - RIGHT
-		 * 2 - DOWN
-		 * 3 - LEFT
-		 */
-		int direction; 
-
-		boolean visited[][] = new boolean[size][size];
-
-		// -- BEGIN Marks all walls and the exit as visited cells, so they don't count. 
-		for(int i = 0; i < size; i++) {
-			for(int j = 0; j < size; j++) {
-				if(tiles[i][j] == 'x' || tiles[i][j] == 'S') visited[i][j] = true;
-				else visited[i][j] = false;
-			}
-		}
-		// -- END 
-
-		// Test visited array.
-		/*
-		for(int i = 0; i < size; i++) {
-			for(int j = 0; j < size; j++) {
-				System.out.print(" " + visited[i][j] + " ");
-			}
-			System.out.println();
-		}
-		 */
-
-		Stack<Integer> stackX = new Stack<Integer>();
-		Stack<Integer> stackY = new Stack<Integer>();
-		//
-		int current[] = new int[2];
-
-		// -- BEGIN Make the initial cell the adjacent to the exit. 
-		current[0] = exit.getX(); current[1] = exit.getY();
-		if(current[0] == 0) current[0]++;
-		else if(current[0] == (size - 1)) current[0]--;
-		else if(current[1] == 0) current[1]++;
-		else if(current[1] == (size - 1)) current[1]--;
-
-		visited[current[0]][current[1]] = true;
-
-		// Prints current position
-		//System.out.println("Current: " + current[0] + "," + current[1]);
-
-		// -- END 
-
-		boolean done = false;
-		while(!done) {
-
-			// Pick valid neighbor
-			boolean found = false;
-			while(!found) {
-
-				if(!hasUnvisitedNeighbors(current[0], current[1], visited)) {
-
-					if(!stackX.isEmpty()) {
-						current[0] = stackX.pop(); current[1] = stackY.pop();
-					} else {
-						boolean newCell = false;
-						for(int i = 0; i < size; i++) {
-							for(int j = 0; j < size; j++) {
-								if(!visited[i][j]) {
-									current[0] = i; current[1] = j;
-									newCell = true;
-									break;
-								}
-								if(newCell) break;
-							}
-						}
-					}
-
-
-				} else {
-
-					// Push current cell to stack
-					stackX.push(current[0]); stackY.push(current[1]);
-
-					direction = r.nextInt(4);
-
-					if(hasNeighbor(current[0], current[1], direction)) {
-						switch(direction) {
-						// UP
-						case 0:
-							if(!visited[current[0] - 2][current[1]]) {
-								tiles[current[0] - 1][current[1]] = ' ';
-								current[0] -= 2;
-								found = true;
-							}
-							break;
-							// RIGHT
-						case 1:
-							if(!visited[current[0]][current[1] + 2]) {
-								tiles[current[0]][current[1] + 1] = ' ';
-								current[1] += 2;
-								found = true;
-							}
-							break;
-							// DOWN
-						case 2:
-							if(!visited[current[0] + 2][current[1]]) {
-								tiles[current[0] + 1][current[1]] = ' ';
-								current[0] += 2;
-								found = true;
-							}
-							break;
-							// LEFT
-						case 3:
-							if(!visited[current[0]][current[1] - 2]) {
-								tiles[current[0]][current[1] - 1] = ' ';
-								current[1] -= 2;
-								found = true;
-							}
-							break;
-						}
-						visited[current[0]][current[1]] = true;
-					}
-				}
-
-
-
-			}
+	public void GenerateWalls(Random random) {
+		getGenerator().carve(this, random);
+	}
 
-			// Checks if we still have unvisited cells.
-			for(int i = 0; i < size; i++) {
-				done = true;
-				for(int j = 0; j < size; j++) {
-					if(!visited[i][j]) {
-						done = false;
-						break;
-					}
-				}
-				if(!done) break;
-			}
+	// -- END Maze generation
 
-		}
+	/*
+	 *  SERIALIZATION
+	 */
 
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("size", size);
+		fields.put("exit", exit);
+		fields.put("walls", walls);
+		fields.put("tiles", null);
+		out.writeFields();
 	}
-	
-	public boolean hasNeighbor(int x, int y, int direction) {
-		
-		switch(direction) {
-		// UP
-		case 0:
-			return (x - 2) >= 0;
-		// RIGHT
-		case 1:
-			if((y + 2) >= size) return false;
-			else return true;
-		// DOWN
-		case 2:
-			if((x + 2) >= size) return false;
-			else return true;
-		// LEFT
-		case 3:
-			if((y - 2) < 0) return false;
-			else return true;
-		}
-		
-		return false;
-		
-	}
-	
-	public boolean hasUnvisitedNeighbors(int x, int y, boolean visited[][]) {
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		size = fields.get("size", 0);
+		exit = (Element) fields.get("exit", null);
+		walls = (long[]) fields.get("walls", null);
 		
-		boolean result = false;
-		for(int i = 0; i < 4; i++) {
-			switch(i) {
-			// UP
-			case 0:
-				if((x - 2) >= 0) {
-					if(!visited[x - 2][y]) result = true;
-				}
-				break;
-			// RIGHT
-			case 1:
-				if((y + 2) < size) {
-					if(!visited[x][y + 2]) result = true;
-				}
-				break;
-			// DOWN
-			case 2:
-				if((x + 2) < size) {
-					if(!visited[x + 2][y]) result = true;
-				}
-				break;
-			// LEFT
-			case 3:
-				if((y - 2) >= 0) {
-					if(!visited[x][y - 2]) result = true;
-				}
-				break;
-			}
-			
+		// Old (char matrix) save.
+		char tiles[][] = (char[][]) fields.get("tiles", null);
+		if(walls == null && tiles != null) {
+			setTiles(tiles);
 		}
-		
-		return result;
 	}
 
-	// -- END Maze generation
-
 }
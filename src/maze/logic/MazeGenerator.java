@@ -0,0 +1,25 @@
+package maze.logic;
+
+import java.util.Random;
+
+/**
+ * Interface implemented by all "maze generator" type objects.
+ *
+ * A maze generator carves the passages of a maze that already has its
+ *   chamber, grid and exit set (see Maze.generate()).
+ *   The maze cells are the tiles with both coordinates odd, and
+ *   the walls between two cells are the tiles in between them.
+ *
+ * @see Maze
+ */
+public interface MazeGenerator {
+
+	/**
+	 * Opens the walls of the given maze so that every cell is
+	 *   reachable from any other cell through exactly one path.
+	 *
+	 * @param maze : maze to carve (chamber, grid and exit already set)
+	 * @param random : source of randomness to use
+	 */
+	public void carve(Maze maze, Random random);
+}
@@ -0,0 +1,22 @@
+package maze.logic;
+
+/**
+ * Interface implemented by all "maze row sink" type objects.
+ *
+ * A maze row sink receives, one at a time and from top to bottom, the rows
+ *   of tiles of a maze generated by the StreamingMazeGenerator
+ *   (eg: to write them to a file).
+ *
+ * @see StreamingMazeGenerator
+ */
+public interface MazeRowSink {
+
+	/**
+	 * Receives a row of tiles ('x' - wall, ' ' - floor, 'S' - exit).
+	 *   The array is reused for the next row, so it must be copied if kept.
+	 *
+	 * @param index : index of the row (0 is the top row)
+	 * @param tiles : tiles of the row
+	 */
+	public void row(long index, char tiles[]);
+}
@@ -0,0 +1,29 @@
+package maze.logic;
+
+/**
+ * Interface of what can be read from a maze: the tiles, wall or floor.
+ *   Implemented by the fixed Maze and by the endless ChunkedMaze.
+ *
+ * Reading the tiles may be done from many threads at a time (eg: the
+ *   dragons are planned in parallel, see ParallelDragonUpdater).
+ */
+public interface MazeView {
+
+	/**
+	 * Checks if the tile at the position (x, y) is a wall.
+	 *
+	 * @param x : X coordinate
+	 * @param y : Y coordinate
+	 * @return true if wall
+	 */
+	public boolean isWall(int x, int y);
+
+	/**
+	 * Gets the tile at the position (x, y).
+	 *
+	 * @param x : X coordinate
+	 * @param y : Y coordinate
+	 * @return the tile at (x, y): 'x' - wall, ' ' - floor
+	 */
+	public char getTile(int x, int y);
+}
@@ -17,6 +17,9 @@ public class Moveable extends Element {
 	protected boolean alive;
 	protected boolean hasSword;
 	
+	// Grid of the game this element is in, if it is a dragon (see OccupancyGrid).
+	transient OccupancyGrid occupancy;
+	
 	/**
 	 * Default Constructor.
 	 */
@@ -55,6 +58,20 @@ public class Moveable extends Element {
 		this.alive = true;
 	}
 
+	/**
+	 * Copy Constructor.
+	 *   The copy isn't linked to the occupancy grid of the game.
+	 * 
+	 * @param m : Moveable to copy
+	 */
+	public Moveable(Moveable m) {
+		
+		super(m);
+		
+		this.alive = m.alive;
+		this.hasSword = m.hasSword;
+	}
+
 	/**
 	 * Gets the value of the parameter [hasSword].
 	 * 
@@ -70,7 +87,13 @@ public class Moveable extends Element {
 	 * @param hasSword : value to be set
 	 */
 	public void setHasSword(boolean hasSword) {
+		
+		boolean had = this.hasSword;
 		this.hasSword = hasSword;
+		
+		if(occupancy != null && had != hasSword) {
+			occupancy.armed(this);
+		}
 	}
 
 	/**
@@ -88,7 +111,18 @@ public class Moveable extends Element {
 	 * @param alive : value to be set
 	 */
 	public void setAlive(boolean alive) {
+		
+		boolean wasAlive = this.alive;
 		this.alive = alive;
+		
+		if(occupancy != null && wasAlive != alive) {
+			if(alive) {
+				occupancy.revived(this);
+			}
+			else {
+				occupancy.died(this);
+			}
+		}
 	}
 
 	/**
@@ -117,6 +151,10 @@ public class Moveable extends Element {
 		default:
 			break;
 		}
+		
+		if(occupancy != null && (x != oldX || y != oldY)) {
+			occupancy.moved(this, oldX, oldY);
+		}
 	}
 	
 	/**
@@ -160,16 +198,30 @@ public class Moveable extends Element {
 	 * Moves an Element to its old position prior to the last movement.
 	 */
 	public void moveBack() {
+		
+		int fromX = x, fromY = y;
+		
 		this.x = oldX;
 		this.y = oldY;
+		
+		if(occupancy != null && (x != fromX || y != fromY)) {
+			occupancy.moved(this, fromX, fromY);
+		}
 	}
 	
 	/**
 	 * "Kills" an Element by erasing its symbol and setting the parameter [alive] to false.
 	 */
 	public void die() {
+		
+		boolean wasAlive = this.alive;
+		
 		this.alive = false;
 		this.symbol = ' ';
+		
+		if(occupancy != null && wasAlive) {
+			occupancy.died(this);
+		}
 	}
 	
 	/**
@@ -183,18 +235,9 @@ public class Moveable extends Element {
 	 */
 	public boolean isValidMove(int x, int y, GameLogic game) {
 
-		if(game.getDragons() != null) {
-
-			for(Dragon dragon: game.getDragons()) {
-
-				if(!(this == dragon)) {
-
-					if(dragon.isAlive() && dragon.isAt(x, y)) {
-						return false;
-					}
-				}
-			}
-
+		Dragon dragon = game.dragonAt(x, y);
+		if(dragon != null && dragon != this) {
+			return false;
 		}
 
 		if(this == game.getHero()) {
@@ -209,7 +252,7 @@ public class Moveable extends Element {
 
 		}
 		
-		if(game.getMaze().getTiles()[x][y] == 'x') {
+		if(game.getMaze().isWall(x, y)) {
 			return false;
 		}
 
@@ -219,7 +262,7 @@ public class Moveable extends Element {
 			}
 		}
 		
-		if(game.getMaze().getTiles()[x][y] == ' ') {
+		if(game.getMaze().getTile(x, y) == ' ') {
 			return true;
 		}
 		
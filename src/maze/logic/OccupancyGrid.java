@@ -0,0 +1,228 @@
+package maze.logic;
+
+/**
+ * Class that keeps which dragon is on each tile of the maze.
+ *
+ * Every tile holds the index (+1) of the dragon on it, or 0 if none, so
+ *   "which dragon is at (x, y)?" is answered in constant time instead of
+ *   looping through all the dragons.
+ *   The dragons keep the grid up to date themselves when they move, move
+ *   back, die or come back to life (see Moveable).
+ *
+ * Only alive dragons are in the grid. Every answer is checked against the
+ *   dragon itself, so a dragon moved without the grid knowing is never
+ *   reported at the wrong place.
+ *
+ * The grid also counts the alive dragons and keeps the dragon upon the
+ *   sword (if any), so the objectives of the game are checked without
+ *   looping through all the dragons every turn.
+ *
+ * @see GameLogic#dragonAt(int, int)
+ */
+public class OccupancyGrid {
+
+	private int size;
+	private int cells[];
+	private Dragon dragons[];
+
+	private int aliveCount;
+	private Dragon swordCarrier;
+
+	/**
+	 * Constructor.
+	 *   Puts every alive dragon on its tile and registers the grid in the dragons.
+	 *
+	 * @param size : size of the maze
+	 * @param dragons : dragons of the game (may be null)
+	 */
+	public OccupancyGrid(int size, Dragon dragons[]) {
+
+		this.size = size;
+		this.cells = new int[size * size];
+		this.dragons = (dragons == null) ? new Dragon[0] : dragons;
+
+		for(int i = 0; i < this.dragons.length; i++) {
+			Dragon dragon = this.dragons[i];
+			if(dragon != null) {
+				dragon.occupancy = this;
+				if(dragon.isAlive()) {
+					put(i, dragon.getX(), dragon.getY());
+					aliveCount++;
+				}
+				if(dragon.hasSword() && swordCarrier == null) {
+					swordCarrier = dragon;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the alive dragon at the tile (x, y).
+	 *
+	 * @param x : X coordinate
+	 * @param y : Y coordinate
+	 * @return the dragon at (x, y), or null if none
+	 */
+	public Dragon dragonAt(int x, int y) {
+
+		int index = indexAt(x, y);
+
+		return (index < 0) ? null : dragons[index];
+	}
+
+	/**
+	 * Gets the index (in the dragons array) of the alive dragon at the tile (x, y).
+	 *
+	 * @param x : X coordinate
+	 * @param y : Y coordinate
+	 * @return the index of the dragon at (x, y), or -1 if none
+	 */
+	public int indexAt(int x, int y) {
+
+		if(x < 0 || y < 0 || x >= size || y >= size) {
+			return -1;
+		}
+
+		int index = cells[x * size + y] - 1;
+		if(index < 0) {
+			return -1;
+		}
+
+		Dragon dragon = dragons[index];
+		if(dragon == null || !dragon.isAlive() || !dragon.isAt(x, y)) {
+			return -1;
+		}
+
+		return index;
+	}
+
+	/**
+	 * Gets the number of alive dragons.
+	 *
+	 * @return number of alive dragons
+	 */
+	public int getAliveCount() {
+		return aliveCount;
+	}
+
+	/**
+	 * Gets the dragon upon the sword.
+	 *
+	 * @return the dragon that has the sword, or null if none
+	 */
+	public Dragon getSwordCarrier() {
+		return swordCarrier;
+	}
+
+	/**
+	 * Updates the grid after a dragon has moved from the tile (fromX, fromY)
+	 *   to its current position.
+	 *
+	 * @param dragon : dragon that moved
+	 * @param fromX : previous X coordinate
+	 * @param fromY : previous Y coordinate
+	 */
+	void moved(Moveable dragon, int fromX, int fromY) {
+
+		int index = remove(dragon, fromX, fromY);
+
+		if(index >= 0 && dragon.isAlive()) {
+			put(index, dragon.getX(), dragon.getY());
+		}
+	}
+
+	/**
+	 * Updates the grid after a dragon has died.
+	 *
+	 * @param dragon : dragon that died
+	 */
+	void died(Moveable dragon) {
+		if(remove(dragon, dragon.getX(), dragon.getY()) >= 0) {
+			aliveCount--;
+		}
+	}
+
+	/**
+	 * Updates the grid after a dragon has come back to life.
+	 *
+	 * @param dragon : dragon that is alive again
+	 */
+	void revived(Moveable dragon) {
+		for(int i = 0; i < dragons.length; i++) {
+			if(dragons[i] == dragon) {
+				put(i, dragon.getX(), dragon.getY());
+				aliveCount++;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Updates the sword carrier after a dragon has found or left the sword.
+	 *
+	 * @param dragon : dragon that found or left the sword
+	 */
+	void armed(Moveable dragon) {
+
+		if(dragon.hasSword()) {
+			if(swordCarrier == null && indexOf(dragon) >= 0) {
+				swordCarrier = dragons[indexOf(dragon)];
+			}
+			return;
+		}
+
+		if(swordCarrier != dragon) {
+			return;
+		}
+
+		// Another dragon may share the tile of the sword (rare: look for it).
+		swordCarrier = null;
+		for(Dragon other: dragons) {
+			if(other != null && other.hasSword()) {
+				swordCarrier = other;
+				return;
+			}
+		}
+	}
+
+	private void put(int index, int x, int y) {
+
+		if(x < 0 || y < 0 || x >= size || y >= size) {
+			return;
+		}
+
+		// If two dragons share a tile, the first one (lowest index) is kept.
+		int current = cells[x * size + y] - 1;
+		if(current >= 0 && current < index && dragons[current] != null
+				&& dragons[current].isAlive() && dragons[current].isAt(x, y)) {
+			return;
+		}
+
+		cells[x * size + y] = index + 1;
+	}
+
+	private int remove(Moveable dragon, int x, int y) {
+
+		if(x < 0 || y < 0 || x >= size || y >= size) {
+			return indexOf(dragon);
+		}
+
+		int index = cells[x * size + y] - 1;
+		if(index >= 0 && dragons[index] == dragon) {
+			cells[x * size + y] = 0;
+			return index;
+		}
+
+		// The dragon wasn't registered on that tile (it was moved by someone else).
+		return indexOf(dragon);
+	}
+
+	private int indexOf(Moveable dragon) {
+		for(int i = 0; i < dragons.length; i++) {
+			if(dragons[i] == dragon) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
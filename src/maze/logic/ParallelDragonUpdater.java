@@ -0,0 +1,144 @@
+package maze.logic;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class that updates the dragons of a game in two phases:
+ *   - plan: every dragon sets its state and picks where to move to,
+ *       concurrently on a ForkJoinPool (a dragon only uses its own state
+ *       and its own stream of random numbers);
+ *   - commit: the dragons move, one after the other by index, to the tiles
+ *       they picked if still free (the lower index wins a tile).
+ *
+ * Since only the plan is concurrent, the result doesn't depend on the number
+ *   of threads, and is the same as updating the dragons one after the other.
+ *
+ * @see Dragon#update(GameLogic)
+ * @see DragonStore#update(GameLogic)
+ */
+public class ParallelDragonUpdater {
+
+	// Dragons planned by each task.
+	public static final int BATCH = 4096;
+
+	private ForkJoinPool pool;
+
+	private int parallelism;
+
+	private int intent[];
+
+	/**
+	 * Constructor.
+	 *
+	 * @param parallelism : number of threads to use
+	 */
+	public ParallelDragonUpdater(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Gets the number of threads used.
+	 *
+	 * @return number of threads
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Updates all the dragons of the game.
+	 *
+	 * @param game : current GameLogic instance
+	 */
+	public void update(GameLogic game) {
+
+		if(game.getConfig() == null) {
+			return;
+		}
+
+		if(pool == null) {
+			pool = new ForkJoinPool(parallelism);
+		}
+
+		DragonStore store = game.getDragonStore();
+
+		if(store != null) {
+			store.prepare();
+			pool.invoke(new PlanRange(game, null, store, 0, store.getCount()));
+			store.commit(game);
+			return;
+		}
+
+		Dragon dragons[] = game.getDragons();
+		if(dragons == null) {
+			return;
+		}
+
+		// Streams are split from the game's one in order, before going concurrent.
+		for(Dragon dragon: dragons) {
+			dragon.prepare(game);
+		}
+
+		if(intent == null || intent.length != dragons.length) {
+			intent = new int[dragons.length];
+		}
+
+		pool.invoke(new PlanRange(game, dragons, null, 0, dragons.length));
+
+		for(int i = 0; i < dragons.length; i++) {
+			dragons[i].act(game, intent[i]);
+		}
+	}
+
+	/**
+	 * Shuts down the threads of the pool.
+	 */
+	public void shutdown() {
+		if(pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	/**
+	 * Task that plans a range of dragons (splitting it while bigger than BATCH).
+	 */
+	private class PlanRange extends RecursiveAction {
+
+		private static final long serialVersionUID = 1;
+
+		private GameLogic game;
+		private Dragon dragons[];
+		private DragonStore store;
+		private int from, to;
+
+		PlanRange(GameLogic game, Dragon dragons[], DragonStore store, int from, int to) {
+			this.game = game;
+			this.dragons = dragons;
+			this.store = store;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+
+			if(to - from > BATCH) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new PlanRange(game, dragons, store, from, middle),
+						new PlanRange(game, dragons, store, middle, to));
+				return;
+			}
+
+			if(store != null) {
+				store.plan(game, from, to);
+				return;
+			}
+
+			for(int i = from; i < to; i++) {
+				intent[i] = dragons[i].plan(game);
+			}
+		}
+	}
+}
@@ -0,0 +1,253 @@
+package maze.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class that represents the parallel maze generator (meant for huge mazes).
+ *
+ * The cells are split in square regions (TILE x TILE cells) that are carved
+ *   concurrently on a ForkJoinPool, each one with the backtracking algorithm
+ *   and its own RandomStream (seeded from the given one and the region number,
+ *   so the result doesn't depend on the number of threads).
+ *   The regions are then stitched together following a random spanning tree
+ *   of the regions (one opened wall per tree edge), so the maze stays
+ *   perfect: exactly one path between any two cells.
+ *
+ * Small mazes (a single region) are carved with the BacktrackerGenerator.
+ *
+ * @see MazeGenerator
+ * @see BacktrackerGenerator
+ */
+public class ParallelMazeGenerator implements MazeGenerator {
+
+	// Region side, in cells.
+	public static final int TILE = 128;
+
+	private ForkJoinPool pool;
+
+	private int parallelism;
+
+	/**
+	 * Default Constructor.
+	 *   Uses as many threads as available processors.
+	 */
+	public ParallelMazeGenerator() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param parallelism : number of threads to use
+	 */
+	public ParallelMazeGenerator(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/* (non-Javadoc)
+	 * @see maze.logic.MazeGenerator#carve(maze.logic.Maze, java.util.Random)
+	 */
+	@Override
+	public void carve(Maze maze, Random random) {
+
+		int cells = (maze.getSize() - 1) / 2;
+
+		if(cells <= TILE) {
+			new BacktrackerGenerator().carve(maze, random);
+			return;
+		}
+
+		int regions = (cells + TILE - 1) / TILE;
+
+		long seed = random.nextLong();
+
+		// -- BEGIN Carves every region (concurrently).
+		long open[][] = new long[regions * regions][];
+
+		List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+		for(int region = 0; region < regions * regions; region++) {
+			tasks.add(new CarveRegion(open, region, regions, cells, seed));
+		}
+		runAll(tasks);
+		// -- END
+
+		// -- BEGIN Writes the regions to the maze, a row of regions per task.
+		// Two rows of regions are at least one maze row apart, so (for mazes
+		//   bigger than 64) they never share a long of the packed walls.
+		tasks.clear();
+		for(int regionRow = 0; regionRow < regions; regionRow++) {
+			tasks.add(new OpenRegionRow(maze, open, regionRow, regions, cells));
+		}
+		runAll(tasks);
+		// -- END
+
+		stitch(maze, regions, cells, new RandomStream(seed));
+	}
+
+	/**
+	 * Opens one wall between regions for each edge of a random spanning tree of
+	 *   the regions (randomized Kruskal's algorithm).
+	 *
+	 * @param maze : maze being generated
+	 * @param regions : number of regions per row
+	 * @param cells : number of cells per row
+	 * @param random : source of randomness to use
+	 */
+	private void stitch(Maze maze, int regions, int cells, Random random) {
+
+		// Edges between regions: edge = 2 * region (right) or 2 * region + 1 (down).
+		int edges[] = new int[2 * regions * regions];
+		int count = 0;
+		for(int region = 0; region < regions * regions; region++) {
+			if(region % regions < regions - 1) edges[count++] = 2 * region;
+			if(region / regions < regions - 1) edges[count++] = 2 * region + 1;
+		}
+
+		// Shuffles the edges.
+		for(int i = count - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int temp = edges[i]; edges[i] = edges[j]; edges[j] = temp;
+		}
+
+		int parent[] = new int[regions * regions];
+		for(int i = 0; i < parent.length; i++) {
+			parent[i] = i;
+		}
+
+		for(int i = 0; i < count; i++) {
+
+			int region = edges[i] / 2;
+			boolean right = (edges[i] % 2 == 0);
+			int other = right ? region + 1 : region + regions;
+
+			int a = find(parent, region);
+			int b = find(parent, other);
+			if(a == b) {
+				continue;
+			}
+			parent[a] = b;
+
+			int firstRow = (region / regions) * TILE;
+			int firstColumn = (region % regions) * TILE;
+
+			if(right) {
+				// Wall between the last column of [region] and the first of [other].
+				int row = firstRow + random.nextInt(Math.min(TILE, cells - firstRow));
+				int column = firstColumn + TILE - 1;
+				maze.setTile(2 * row + 1, 2 * column + 2, ' ');
+			}
+			else {
+				// Wall between the last row of [region] and the first of [other].
+				int column = firstColumn + random.nextInt(Math.min(TILE, cells - firstColumn));
+				int row = firstRow + TILE - 1;
+				maze.setTile(2 * row + 2, 2 * column + 1, ' ');
+			}
+		}
+	}
+
+	private static int find(int parent[], int i) {
+		while(parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	/**
+	 * Shuts down the threads of the pool (they are started again by the next carve()).
+	 */
+	public void shutdown() {
+		if(pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	/**
+	 * Runs the given tasks on the pool and waits for all of them.
+	 *
+	 * @param tasks : tasks to run
+	 */
+	private void runAll(final List<RecursiveAction> tasks) {
+		if(pool == null) {
+			pool = new ForkJoinPool(parallelism);
+		}
+		pool.invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1;
+
+			@Override
+			protected void compute() {
+				invokeAll(tasks);
+			}
+		});
+	}
+
+	/**
+	 * Task that carves a region of cells into its own bit set of open walls.
+	 */
+	private static class CarveRegion extends RecursiveAction {
+
+		private static final long serialVersionUID = 1;
+
+		private long open[][];
+		private int region, regions, cells;
+		private long seed;
+
+		CarveRegion(long open[][], int region, int regions, int cells, long seed) {
+			this.open = open;
+			this.region = region;
+			this.regions = regions;
+			this.cells = cells;
+			this.seed = seed;
+		}
+
+		@Override
+		protected void compute() {
+			int rows = Math.min(TILE, cells - (region / regions) * TILE);
+			int columns = Math.min(TILE, cells - (region % regions) * TILE);
+
+			Random random = new RandomStream(RandomStream.mix64(seed + region + 1));
+
+			long bits[] = new long[((2 * rows * columns) >> 6) + 1];
+			BacktrackerGenerator.carveCells(rows, columns, random.nextInt(rows * columns), random, bits);
+			open[region] = bits;
+		}
+	}
+
+	/**
+	 * Task that writes a row of carved regions to the maze.
+	 */
+	private static class OpenRegionRow extends RecursiveAction {
+
+		private static final long serialVersionUID = 1;
+
+		private Maze maze;
+		private long open[][];
+		private int regionRow, regions, cells;
+
+		OpenRegionRow(Maze maze, long open[][], int regionRow, int regions, int cells) {
+			this.maze = maze;
+			this.open = open;
+			this.regionRow = regionRow;
+			this.regions = regions;
+			this.cells = cells;
+		}
+
+		@Override
+		protected void compute() {
+			int firstRow = regionRow * TILE;
+			int rows = Math.min(TILE, cells - firstRow);
+
+			for(int regionColumn = 0; regionColumn < regions; regionColumn++) {
+				int firstColumn = regionColumn * TILE;
+				int columns = Math.min(TILE, cells - firstColumn);
+
+				BacktrackerGenerator.openWalls(maze, open[regionRow * regions + regionColumn], firstRow, firstColumn, rows, columns);
+			}
+		}
+	}
+}
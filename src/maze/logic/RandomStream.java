@@ -0,0 +1,122 @@
+package maze.logic;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class that represents a stream of pseudo-random numbers.
+ *
+ * Follows the SplitMix64 algorithm (the same as java.util.SplittableRandom):
+ *   the state is a single long, there is no synchronization, and a stream
+ *   may be split into a new, statistically independent, stream.
+ *   It extends Random so it can be used wherever a Random is expected
+ *   (and it is serializable, so it is saved along with the game).
+ *
+ * A stream is not thread-safe: each entity/thread should own its stream.
+ *
+ * @see GameRandom
+ */
+public class RandomStream extends Random {
+
+	private static final long serialVersionUID = 1;
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private static final AtomicLong defaultSeeds = new AtomicLong(System.nanoTime());
+
+	private long state;
+	private final long gamma;
+
+	/**
+	 * Default Constructor.
+	 *   Creates a stream with a seed that is (very likely) unique.
+	 */
+	public RandomStream() {
+		this(mix64(defaultSeeds.getAndAdd(2 * GOLDEN_GAMMA)) ^ mix64(System.nanoTime()));
+	}
+
+	/**
+	 * Constructor.
+	 *   Creates a stream with the given seed (same seed, same numbers).
+	 *
+	 * @param seed : initial seed
+	 */
+	public RandomStream(long seed) {
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	private RandomStream(long seed, long gamma) {
+		super(0);
+		this.state = seed;
+		this.gamma = gamma;
+	}
+
+	/**
+	 * Creates a new stream, independent from this one.
+	 *   Advances this stream.
+	 *
+	 * @return the new stream
+	 */
+	public RandomStream split() {
+		return new RandomStream(nextLong(), mixGamma(state += gamma));
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Random#nextLong()
+	 */
+	@Override
+	public long nextLong() {
+		return mix64(state += gamma);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Random#next(int)
+	 */
+	@Override
+	protected int next(int bits) {
+		return (int) (mix64(state += gamma) >>> (64 - bits));
+	}
+
+	/**
+	 * Gets the current state of the stream (to save it).
+	 *
+	 * @return the state
+	 */
+	public long getState() {
+		return state;
+	}
+
+	/**
+	 * Gets the increment of the stream (to save it).
+	 *
+	 * @return the gamma
+	 */
+	public long getGamma() {
+		return gamma;
+	}
+
+	/**
+	 * Recreates a stream from its saved state and gamma.
+	 *
+	 * @param state : saved state
+	 * @param gamma : saved gamma
+	 * @return the stream
+	 */
+	public static RandomStream restore(long state, long gamma) {
+		return new RandomStream(state, gamma);
+	}
+
+	static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int n = Long.bitCount(z ^ (z >>> 1));
+		return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+}
@@ -0,0 +1,180 @@
+package maze.logic;
+
+import java.util.Random;
+
+/**
+ * Class that generates mazes row by row (Eller's algorithm).
+ *
+ * Only the current row of cells is kept in memory (the set each cell belongs
+ *   to), so the memory used depends on the width of the maze only, and the
+ *   height may be far bigger than what fits in memory.
+ *   Every row of tiles is handed to a MazeRowSink as soon as it is done.
+ *
+ * The tiles follow the Maze conventions: 'x' - wall, ' ' - floor, and the
+ *   exit ('S') is placed on the top wall. Like the other generators, the
+ *   maze is perfect: exactly one path between any two cells.
+ *
+ * @see MazeRowSink
+ */
+public class StreamingMazeGenerator {
+
+	private int width;
+	private long height;
+
+	/**
+	 * Constructor.
+	 *   Sizes are in tiles (like the size of a Maze), and must be odd and bigger than 4.
+	 *
+	 * @param width : number of columns of tiles
+	 * @param height : number of rows of tiles
+	 */
+	public StreamingMazeGenerator(int width, long height) {
+
+		if(width < 5 || height < 5 || width % 2 == 0 || height % 2 == 0) {
+			throw new IllegalArgumentException("Maze sizes must be odd and bigger than 4: " + width + "x" + height);
+		}
+
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Gets the number of columns of tiles.
+	 *
+	 * @return the width
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Gets the number of rows of tiles.
+	 *
+	 * @return the height
+	 */
+	public long getHeight() {
+		return height;
+	}
+
+	/**
+	 * Generates the maze, sending each row of tiles to the sink.
+	 *
+	 * @param random : source of randomness to use
+	 * @param sink : receiver of the rows
+	 */
+	public void generate(Random random, MazeRowSink sink) {
+
+		int cells = (width - 1) / 2;
+		long rows = (height - 1) / 2;
+
+		// Set of each cell of the current row, and union-find of the sets.
+		int set[] = new int[cells];
+		int parent[] = new int[cells];
+		// Per set: number of cells left to visit and whether it already goes down.
+		int left[] = new int[cells];
+		boolean down[] = new boolean[cells];
+		boolean goesDown[] = new boolean[cells];
+		boolean used[] = new boolean[cells];
+
+		char tiles[] = new char[width];
+
+		for(int c = 0; c < cells; c++) {
+			set[c] = c;
+			parent[c] = c;
+		}
+
+		// -- BEGIN Top wall (with the exit).
+		for(int j = 0; j < width; j++) {
+			tiles[j] = 'x';
+		}
+		tiles[2 * random.nextInt(cells) + 1] = 'S';
+		sink.row(0, tiles);
+		// -- END
+
+		for(long r = 0; r < rows; r++) {
+
+			boolean last = (r == rows - 1);
+
+			// -- BEGIN Joins adjacent cells (row of cells).
+			tiles[0] = 'x';
+			for(int c = 0; c < cells; c++) {
+
+				tiles[2 * c + 1] = ' ';
+
+				if(c == cells - 1) {
+					tiles[2 * c + 2] = 'x';
+					break;
+				}
+
+				int a = find(parent, set[c]);
+				int b = find(parent, set[c + 1]);
+
+				if(a != b && (last || random.nextBoolean())) {
+					parent[b] = a;
+					tiles[2 * c + 2] = ' ';
+				}
+				else {
+					tiles[2 * c + 2] = 'x';
+				}
+			}
+			sink.row(2 * r + 1, tiles);
+			// -- END
+
+			// -- BEGIN Opens at least one wall down per set (row of walls).
+			for(int j = 0; j < width; j++) {
+				tiles[j] = 'x';
+			}
+
+			if(!last) {
+
+				for(int c = 0; c < cells; c++) {
+					set[c] = find(parent, set[c]);
+					left[set[c]]++;
+					down[set[c]] = false;
+				}
+
+				for(int c = 0; c < cells; c++) {
+
+					int s = set[c];
+					left[s]--;
+
+					// The last cell of a set with no way down must go down.
+					goesDown[c] = (!down[s] && left[s] == 0) || random.nextBoolean();
+
+					if(goesDown[c]) {
+						down[s] = true;
+						tiles[2 * c + 1] = ' ';
+					}
+				}
+
+				// Next row: the cells that go down keep their set, the others get a new one.
+				for(int c = 0; c < cells; c++) {
+					parent[c] = c;
+					used[c] = false;
+				}
+				for(int c = 0; c < cells; c++) {
+					if(goesDown[c]) used[set[c]] = true;
+				}
+				int free = 0;
+				for(int c = 0; c < cells; c++) {
+					if(!goesDown[c]) {
+						while(used[free]) free++;
+						set[c] = free;
+						used[free] = true;
+					}
+				}
+			}
+
+			sink.row(2 * r + 2, tiles);
+			// -- END
+		}
+	}
+
+	private static int find(int parent[], int i) {
+		while(parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+}
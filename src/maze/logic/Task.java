@@ -34,6 +34,16 @@ public class Task implements Serializable {
 		this.setDescription(description);
 		this.setDone(false);
 	}
+	
+	/**
+	 * Copy Constructor.
+	 * 
+	 * @param t : Task to copy
+	 */
+	public Task(Task t) {
+		this.description = t.description;
+		this.done = t.done;
+	}
 
 	/**
 	 * Returns the Task description.
@@ -0,0 +1,93 @@
+package maze.perf;
+
+/**
+ * Class that keeps the time taken by each stage of a command, from the
+ *   moment the key is pressed to the moment the board is seen:
+ *   - QUEUE: from the key (Window.setKeyCode()) to the game loop taking it;
+ *   - STEP: the turn (GameLogic.step());
+ *   - BOARD: the board of the turn (GameLogic.setGameBoard());
+ *   - PAINT: from asking for the tiles to be painted to being painted;
+ *   - TOTAL: from the key to being painted.
+ *
+ * Each stage has its own histogram (see LatencyHistogram); report() gives
+ *   the median, 99th percentile and maximum of every stage, and the same is
+ *   printed when the program exits, if any command was timed.
+ */
+public class InputLatency {
+
+	public static final int QUEUE = 0;
+	public static final int STEP = 1;
+	public static final int BOARD = 2;
+	public static final int PAINT = 3;
+	public static final int TOTAL = 4;
+
+	private static final String NAMES[] = {"queue", "step", "board", "paint", "total"};
+
+	private static final LatencyHistogram STAGES[] = new LatencyHistogram[NAMES.length];
+
+	static {
+		for(int i = 0; i < STAGES.length; i++) {
+			STAGES[i] = new LatencyHistogram();
+		}
+
+		Runtime.getRuntime().addShutdownHook(new Thread("latency report") {
+			@Override
+			public void run() {
+				if(STAGES[TOTAL].getCount() > 0) {
+					System.err.print(report());
+				}
+			}
+		});
+	}
+
+	/**
+	 * Counts the time taken by a stage.
+	 *
+	 * @param stage : stage (QUEUE, STEP, BOARD, PAINT or TOTAL)
+	 * @param start : System.nanoTime() at the start of the stage
+	 */
+	public static void record(int stage, long start) {
+		STAGES[stage].record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Gets the histogram of a stage.
+	 *
+	 * @param stage : stage (QUEUE, STEP, BOARD, PAINT or TOTAL)
+	 * @return histogram of the times taken by the stage
+	 */
+	public static LatencyHistogram get(int stage) {
+		return STAGES[stage];
+	}
+
+	/**
+	 * Forgets all the times counted.
+	 */
+	public static void reset() {
+		for(LatencyHistogram stage: STAGES) {
+			stage.reset();
+		}
+	}
+
+	/**
+	 * Gets a table with the number of commands, the median, 99th percentile
+	 *   and maximum time (in microseconds) of every stage.
+	 *
+	 * @return the table, one line per stage
+	 */
+	public static String report() {
+
+		String newLine = System.getProperty("line.separator");
+
+		StringBuilder table = new StringBuilder();
+		table.append(String.format("%-6s %8s %10s %10s %10s%s", "stage", "count", "p50 (us)", "p99 (us)", "max (us)", newLine));
+
+		for(int i = 0; i < STAGES.length; i++) {
+			table.append(String.format("%-6s %8d %10.1f %10.1f %10.1f%s", NAMES[i], STAGES[i].getCount(),
+					STAGES[i].getPercentile(50) / 1000.0, STAGES[i].getPercentile(99) / 1000.0,
+					STAGES[i].getMax() / 1000.0, newLine));
+		}
+
+		return table.toString();
+	}
+}
@@ -0,0 +1,153 @@
+package maze.perf;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class that counts durations (in nanoseconds) in a log-linear histogram,
+ *   in the manner of an HDR histogram.
+ *
+ * Durations below 2^PRECISION are counted exactly; above that, every power
+ *   of two is split into 2^PRECISION buckets of the same width, so a value is
+ *   known to within 1/2^PRECISION (about 1.6%) of itself, from nanoseconds
+ *   to centuries, with a fixed table of counters.
+ *
+ * Recording a value is a few bit operations and an atomic increment: it
+ *   doesn't allocate nor lock, and may be done from any thread.
+ */
+public class LatencyHistogram {
+
+	// Bits of precision of each power of two.
+	private static final int PRECISION = 6;
+	private static final int SUB_BUCKETS = 1 << PRECISION;
+
+	private static final int BUCKETS = (64 - PRECISION) * SUB_BUCKETS;
+
+	private AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	private AtomicLong count = new AtomicLong();
+	private AtomicLong total = new AtomicLong();
+	private AtomicLong max = new AtomicLong();
+
+	/**
+	 * Counts a duration.
+	 *
+	 * @param nanos : duration, in nanoseconds (negative durations count as 0)
+	 */
+	public void record(long nanos) {
+
+		if(nanos < 0) {
+			nanos = 0;
+		}
+
+		counts.incrementAndGet(bucket(nanos));
+		count.incrementAndGet();
+		total.addAndGet(nanos);
+
+		long last = max.get();
+		while(nanos > last && !max.compareAndSet(last, nanos)) {
+			last = max.get();
+		}
+	}
+
+	/**
+	 * Gets the duration below which (or at which) a given percentage of the durations are.
+	 *
+	 * @param percentile : percentage (0 to 100, eg: 50 for the median, 99 ...)
+	 * @return the duration, in nanoseconds (0 if none was counted)
+	 */
+	public long getPercentile(double percentile) {
+
+		long n = count.get();
+
+		if(n == 0) {
+			return 0;
+		}
+
+		long rank = (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * n);
+		if(rank < 1) {
+			rank = 1;
+		}
+
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if(seen >= rank) {
+				return Math.min(highest(i), getMax());
+			}
+		}
+
+		return getMax();
+	}
+
+	/**
+	 * Gets the longest duration counted.
+	 *
+	 * @return the duration, in nanoseconds (0 if none was counted)
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Gets the mean of the durations counted.
+	 *
+	 * @return the mean, in nanoseconds (0 if none was counted)
+	 */
+	public double getMean() {
+		long n = count.get();
+		return (n == 0) ? 0 : (double) total.get() / n;
+	}
+
+	/**
+	 * Gets the number of durations counted.
+	 *
+	 * @return number of durations
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Forgets all the durations counted.
+	 */
+	public void reset() {
+		for(int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+
+	/**
+	 * Gets the bucket of a duration.
+	 */
+	static int bucket(long nanos) {
+
+		if(nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+
+		// Position of the highest bit (PRECISION to 62).
+		int magnitude = 63 - Long.numberOfLeadingZeros(nanos);
+		int shift = magnitude - PRECISION;
+
+		return (shift + 1) * SUB_BUCKETS + (int) (nanos >> shift) - SUB_BUCKETS;
+	}
+
+	/**
+	 * Gets the longest duration counted in a bucket.
+	 */
+	static long highest(int bucket) {
+
+		if(bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+
+		int shift = bucket / SUB_BUCKETS - 1;
+		long first = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+
+		return first + (1L << shift) - 1;
+	}
+}
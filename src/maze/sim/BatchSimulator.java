@@ -0,0 +1,209 @@
+package maze.sim;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import maze.logic.GameConfig;
+import maze.logic.GameLogic;
+import maze.logic.RandomStream;
+
+/**
+ * Class that plays many headless games of a configuration, with a hero
+ *   policy, on all cores, and gathers the results in a SimulationReport.
+ *
+ * Every game has its own seed, taken from the seed of the batch, and the
+ *   games are played independently (GameLogic.step()), so the report of a
+ *   batch is the same whatever the number of threads.
+ *
+ * main() prints the report of a set of difficulties and dragon percentages.
+ *
+ * @see HeroPolicy
+ */
+public class BatchSimulator {
+
+	// Games played by each task.
+	public static final int BATCH = 64;
+
+	private HeroPolicy policy;
+	private int maxTurns;
+	private int parallelism;
+
+	private ForkJoinPool pool;
+
+	/**
+	 * Constructor.
+	 *   Uses as many threads as available processors.
+	 *
+	 * @param policy : policy that plays the hero
+	 * @param maxTurns : turns after which a game is given up
+	 */
+	public BatchSimulator(HeroPolicy policy, int maxTurns) {
+		this(policy, maxTurns, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param policy : policy that plays the hero
+	 * @param maxTurns : turns after which a game is given up
+	 * @param parallelism : number of threads to use
+	 */
+	public BatchSimulator(HeroPolicy policy, int maxTurns, int parallelism) {
+		this.policy = policy;
+		this.maxTurns = maxTurns;
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Plays [games] games of a configuration.
+	 *
+	 * @param config : configuration of the games (size, difficulty, dragon percentage...)
+	 * @param games : number of games
+	 * @param seed : seed of the batch
+	 * @return the report of the games
+	 */
+	public SimulationReport run(GameConfig config, int games, long seed) {
+
+		// Seeds of the games (0 would mean a random seed).
+		long seeds[] = new long[games];
+		Random seedStream = new RandomStream(seed);
+		for(int i = 0; i < games; i++) {
+			do {
+				seeds[i] = seedStream.nextLong();
+			}while(seeds[i] == 0);
+		}
+
+		if(pool == null) {
+			pool = new ForkJoinPool(parallelism);
+		}
+
+		return pool.invoke(new PlayRange(config, seeds, 0, games));
+	}
+
+	/**
+	 * Shuts down the threads of the pool.
+	 */
+	public void shutdown() {
+		if(pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	/**
+	 * Plays one game.
+	 *
+	 * @param base : configuration of the game
+	 * @param seed : seed of the game
+	 * @param report : report to add the result to
+	 */
+	public void play(GameConfig base, long seed, SimulationReport report) {
+
+		GameConfig config = new GameConfig(base);
+		config.setMode(GameConfig.HEADLESS);
+		config.setDragonThreads(1);
+		config.setSeed(seed);
+		// Games played at the same time mustn't resume from (nor write to) the same files.
+		config.setAutosave(null);
+
+		GameLogic game = new GameLogic(config);
+		game.init();
+
+		Random random = new RandomStream(~seed);
+
+		int outcome = GameLogic.PLAYING;
+		int turns = 0;
+
+		while(outcome == GameLogic.PLAYING && turns < maxTurns) {
+			outcome = game.step(policy.nextCommand(game, random));
+			turns++;
+		}
+
+		boolean foundSword = game.getHero().hasSword();
+
+		if(outcome == GameLogic.WON) {
+			report.add(SimulationReport.WON, turns, foundSword);
+		}
+		else if(outcome == GameLogic.LOST) {
+			report.add(SimulationReport.KILLED, turns, foundSword);
+		}
+		else {
+			report.add(SimulationReport.OUT_OF_TURNS, turns, foundSword);
+		}
+	}
+
+	/**
+	 * Task that plays a range of games (splitting it while bigger than BATCH).
+	 */
+	private class PlayRange extends RecursiveTask<SimulationReport> {
+
+		private static final long serialVersionUID = 1;
+
+		private GameConfig config;
+		private long seeds[];
+		private int from, to;
+
+		PlayRange(GameConfig config, long seeds[], int from, int to) {
+			this.config = config;
+			this.seeds = seeds;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected SimulationReport compute() {
+
+			if(to - from > BATCH) {
+				int middle = (from + to) >>> 1;
+
+				PlayRange left = new PlayRange(config, seeds, from, middle);
+				PlayRange right = new PlayRange(config, seeds, middle, to);
+
+				left.fork();
+				SimulationReport report = right.compute();
+				report.merge(left.join());
+
+				return report;
+			}
+
+			SimulationReport report = new SimulationReport();
+
+			for(int i = from; i < to; i++) {
+				play(config, seeds[i], report);
+			}
+
+			return report;
+		}
+	}
+
+	public static void main(String[] args) {
+
+		int games = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+		long seed = (args.length > 1) ? Long.parseLong(args[1]) : 1;
+
+		int difficulties[] = {0, 1, 2};
+		String names[] = {"DUMB", "SLEEP", "MOVING"};
+		double percentages[] = {0.01, 0.02, 0.05};
+
+		BatchSimulator simulator = new BatchSimulator(new SeekerPolicy(), 1000);
+
+		System.out.println("Threads: " + simulator.parallelism + ", policy: seeker, maze: 21");
+
+		for(int i = 0; i < difficulties.length; i++) {
+			for(double percentage: percentages) {
+
+				long start = System.nanoTime();
+
+				SimulationReport report = simulator.run(new GameConfig(21, difficulties[i], percentage), games, seed);
+
+				double seconds = (System.nanoTime() - start) / 1e9;
+
+				System.out.println(String.format("%-6s %.2f | %s | %.0f games/h", names[i], percentage, report,
+						games / seconds * 3600));
+			}
+		}
+
+		simulator.shutdown();
+	}
+}
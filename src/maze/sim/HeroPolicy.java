@@ -0,0 +1,28 @@
+package maze.sim;
+
+import java.util.Random;
+
+import maze.logic.GameLogic;
+
+/**
+ * Interface implemented by all "hero policy" type objects.
+ *
+ * A hero policy plays the hero in simulated games: it picks the command
+ *   of each turn from the state of the game.
+ *   The same policy is used by all the threads of a BatchSimulator, so it
+ *   must not keep any state between calls (all randomness comes from the
+ *   [random] given, which belongs to the game being played).
+ *
+ * @see BatchSimulator
+ */
+public interface HeroPolicy {
+
+	/**
+	 * Picks the command for the next turn.
+	 *
+	 * @param game : game being played
+	 * @param random : source of randomness of this game
+	 * @return command (0,1,2,3 - UP,RIGHT,DOWN,LEFT; 4 - EAGLE)
+	 */
+	public int nextCommand(GameLogic game, Random random);
+}
@@ -0,0 +1,20 @@
+package maze.sim;
+
+import java.util.Random;
+
+import maze.logic.GameLogic;
+
+/**
+ * Hero policy that moves the hero in a random direction every turn
+ *   (a lower bound for any other policy).
+ */
+public class RandomPolicy implements HeroPolicy {
+
+	/* (non-Javadoc)
+	 * @see maze.sim.HeroPolicy#nextCommand(maze.logic.GameLogic, java.util.Random)
+	 */
+	@Override
+	public int nextCommand(GameLogic game, Random random) {
+		return random.nextInt(4);
+	}
+}
@@ -0,0 +1,156 @@
+package maze.sim;
+
+import java.util.Random;
+
+import maze.logic.Dragon;
+import maze.logic.Element;
+import maze.logic.GameLogic;
+import maze.logic.Maze;
+
+/**
+ * Hero policy that goes, through the shortest safe path:
+ *   - to the sword, while the hero is unarmed (keeping away from awake dragons);
+ *   - next to the closest alive dragon, once armed;
+ *   - to the exit, once all dragons are dead.
+ *
+ * If there is no path, it moves in a random safe direction.
+ */
+public class SeekerPolicy implements HeroPolicy {
+
+	// UP, RIGHT, DOWN, LEFT
+	private static final int DX[] = {-1, 0, 1, 0};
+	private static final int DY[] = {0, 1, 0, -1};
+
+	/* (non-Javadoc)
+	 * @see maze.sim.HeroPolicy#nextCommand(maze.logic.GameLogic, java.util.Random)
+	 */
+	@Override
+	public int nextCommand(GameLogic game, Random random) {
+
+		Maze maze = game.getMaze();
+		int size = maze.getSize();
+
+		boolean armed = game.getHero().hasSword();
+		boolean allDead = game.allDragonsAreDead();
+
+		// Tiles the hero can't (or shouldn't) step on, and tiles to get to.
+		boolean blocked[] = new boolean[size * size];
+		boolean target[] = new boolean[size * size];
+
+		for(int i = 0; i < game.getDragonCount(); i++) {
+
+			Dragon dragon = game.getDragon(i);
+			if(!dragon.isAlive()) {
+				continue;
+			}
+
+			blocked[dragon.getX() * size + dragon.getY()] = true;
+
+			for(int d = 0; d < 4; d++) {
+				int x = dragon.getX() + DX[d], y = dragon.getY() + DY[d];
+				if(x < 0 || y < 0 || x >= size || y >= size) continue;
+
+				if(armed) {
+					target[x * size + y] = true;
+				}
+				else if(dragon.isAwake()) {
+					blocked[x * size + y] = true;
+				}
+			}
+		}
+
+		Element exit = maze.getExit();
+
+		if(!armed) {
+			Element sword = game.getSword();
+			target[sword.getX() * size + sword.getY()] = true;
+		}
+		else if(allDead && exit != null) {
+			target[exit.getX() * size + exit.getY()] = true;
+		}
+
+		int direction = firstStep(game, blocked, target);
+
+		return (direction < 0) ? safeStep(game, blocked, random) : direction;
+	}
+
+	/**
+	 * Picks a random direction among the safe ones (random if there's none).
+	 */
+	private int safeStep(GameLogic game, boolean blocked[], Random random) {
+
+		Maze maze = game.getMaze();
+		int size = maze.getSize();
+		int x = game.getHero().getX(), y = game.getHero().getY();
+
+		int safe[] = new int[4];
+		int count = 0;
+
+		for(int d = 0; d < 4; d++) {
+			int nx = x + DX[d], ny = y + DY[d];
+			if(nx < 0 || ny < 0 || nx >= size || ny >= size) continue;
+
+			if(!blocked[nx * size + ny] && !maze.isWall(nx, ny)) {
+				safe[count++] = d;
+			}
+		}
+
+		return (count == 0) ? random.nextInt(4) : safe[random.nextInt(count)];
+	}
+
+	/**
+	 * Breadth-first search from the hero to the closest target tile.
+	 *
+	 * @return direction of the first step, -1 if no target can be reached
+	 */
+	private int firstStep(GameLogic game, boolean blocked[], boolean target[]) {
+
+		Maze maze = game.getMaze();
+		Element exit = maze.getExit();
+		int size = maze.getSize();
+
+		int start = game.getHero().getX() * size + game.getHero().getY();
+		if(target[start]) {
+			return -1;
+		}
+
+		// First direction taken to get to each tile (-1: not visited).
+		int first[] = new int[size * size];
+		for(int i = 0; i < first.length; i++) {
+			first[i] = -1;
+		}
+
+		int queue[] = new int[size * size];
+		int head = 0, tail = 0;
+
+		queue[tail++] = start;
+		first[start] = 4;
+
+		while(head < tail) {
+
+			int tile = queue[head++];
+			int x = tile / size, y = tile % size;
+
+			for(int d = 0; d < 4; d++) {
+				int nx = x + DX[d], ny = y + DY[d];
+				if(nx < 0 || ny < 0 || nx >= size || ny >= size) continue;
+
+				int next = nx * size + ny;
+				if(first[next] >= 0 || blocked[next]) continue;
+
+				boolean isExit = (exit != null) && exit.isAt(nx, ny);
+				if(maze.isWall(nx, ny) && !(isExit && target[next])) continue;
+
+				first[next] = (tile == start) ? d : first[tile];
+
+				if(target[next]) {
+					return first[next];
+				}
+
+				queue[tail++] = next;
+			}
+		}
+
+		return -1;
+	}
+}
@@ -0,0 +1,163 @@
+package maze.sim;
+
+/**
+ * Class that gathers the results of simulated games.
+ *
+ * Every game ends in one of three ways:
+ *   - WON: the hero got out with every dragon dead;
+ *   - KILLED: an awake dragon found the hero before he had the sword
+ *       (the only way to die in this game: an armed hero kills the dragon);
+ *   - OUT_OF_TURNS: the game reached the maximum number of turns.
+ *
+ * Reports of parts of a batch are merged with merge(); the result doesn't
+ *   depend on the order of the merges.
+ */
+public class SimulationReport {
+
+	public static final int WON = 0;
+	public static final int KILLED = 1;
+	public static final int OUT_OF_TURNS = 2;
+
+	private long games;
+	private long outcomes[] = new long[3];
+
+	// Turns of the games won.
+	private long turnsToWin;
+	private int minTurnsToWin = Integer.MAX_VALUE;
+	private int maxTurnsToWin;
+
+	// Turns of the games lost to a dragon.
+	private long turnsToDie;
+
+	// Games in which the hero found the sword.
+	private long swordFound;
+
+	/**
+	 * Adds the result of a game.
+	 *
+	 * @param outcome : WON, KILLED or OUT_OF_TURNS
+	 * @param turns : number of turns played
+	 * @param foundSword : whether the hero found the sword
+	 */
+	public void add(int outcome, int turns, boolean foundSword) {
+
+		games++;
+		outcomes[outcome]++;
+
+		if(foundSword) {
+			swordFound++;
+		}
+
+		if(outcome == WON) {
+			turnsToWin += turns;
+			minTurnsToWin = Math.min(minTurnsToWin, turns);
+			maxTurnsToWin = Math.max(maxTurnsToWin, turns);
+		}
+		else if(outcome == KILLED) {
+			turnsToDie += turns;
+		}
+	}
+
+	/**
+	 * Adds all the results of another report to this one.
+	 *
+	 * @param other : report to add
+	 */
+	public void merge(SimulationReport other) {
+
+		games += other.games;
+		for(int i = 0; i < outcomes.length; i++) {
+			outcomes[i] += other.outcomes[i];
+		}
+
+		turnsToWin += other.turnsToWin;
+		minTurnsToWin = Math.min(minTurnsToWin, other.minTurnsToWin);
+		maxTurnsToWin = Math.max(maxTurnsToWin, other.maxTurnsToWin);
+
+		turnsToDie += other.turnsToDie;
+		swordFound += other.swordFound;
+	}
+
+	/**
+	 * Gets the number of games.
+	 *
+	 * @return number of games
+	 */
+	public long getGames() {
+		return games;
+	}
+
+	/**
+	 * Gets the number of games that ended in a given way.
+	 *
+	 * @param outcome : WON, KILLED or OUT_OF_TURNS
+	 * @return number of games
+	 */
+	public long getOutcomes(int outcome) {
+		return outcomes[outcome];
+	}
+
+	/**
+	 * Gets the fraction of games won.
+	 *
+	 * @return win rate (0 to 1)
+	 */
+	public double getWinRate() {
+		return (games == 0) ? 0 : (double) outcomes[WON] / games;
+	}
+
+	/**
+	 * Gets the mean number of turns of the games won.
+	 *
+	 * @return mean turns to win (0 if none was won)
+	 */
+	public double getMeanTurnsToWin() {
+		return (outcomes[WON] == 0) ? 0 : (double) turnsToWin / outcomes[WON];
+	}
+
+	/**
+	 * Gets the fewest turns of a game won.
+	 *
+	 * @return minimum turns to win (0 if none was won)
+	 */
+	public int getMinTurnsToWin() {
+		return (outcomes[WON] == 0) ? 0 : minTurnsToWin;
+	}
+
+	/**
+	 * Gets the most turns of a game won.
+	 *
+	 * @return maximum turns to win
+	 */
+	public int getMaxTurnsToWin() {
+		return maxTurnsToWin;
+	}
+
+	/**
+	 * Gets the mean number of turns of the games lost to a dragon.
+	 *
+	 * @return mean turns to die (0 if none was lost)
+	 */
+	public double getMeanTurnsToDie() {
+		return (outcomes[KILLED] == 0) ? 0 : (double) turnsToDie / outcomes[KILLED];
+	}
+
+	/**
+	 * Gets the number of games in which the hero found the sword.
+	 *
+	 * @return number of games
+	 */
+	public long getSwordFound() {
+		return swordFound;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("%d games: %.1f%% won (%d/%.1f/%d turns), %d killed (%.1f turns), %d out of turns, sword found in %d",
+				games, 100 * getWinRate(), getMinTurnsToWin(), getMeanTurnsToWin(), getMaxTurnsToWin(),
+				outcomes[KILLED], getMeanTurnsToDie(), outcomes[OUT_OF_TURNS], swordFound);
+	}
+}
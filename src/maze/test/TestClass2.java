@@ -169,6 +169,88 @@ public class TestClass2 {
 		assertEquals(comp,gameTest.getDragons()[0]);
 	}
 	
+	@Test
+	public void TestOccupancyFollowsDragons() {
+		
+		gameTest = new GameLogic();
+		
+		gameTest.setMaze(new Maze(maze));
+		
+		gameTest.setDragons(new Dragon[2]);
+		
+		gameTest.getDragons()[0] = new Dragon(1,1,'D');
+		
+		gameTest.getDragons()[1] = new Dragon(1,3,'D');
+		
+		Dragon first = gameTest.getDragons()[0];
+		Dragon second = gameTest.getDragons()[1];
+		
+		assertEquals(first, gameTest.dragonAt(1, 1));
+		
+		first.move(gameTest, 1);
+		
+		assertNull(gameTest.dragonAt(1, 1));
+		assertEquals(first, gameTest.dragonAt(1, 2));
+		
+		// Blocked by the other dragon.
+		first.move(gameTest, 1);
+		
+		assertTrue(first.isAt(1, 2));
+		
+		second.die();
+		
+		assertNull(gameTest.dragonAt(1, 3));
+		
+		first.move(gameTest, 1);
+		
+		assertEquals(first, gameTest.dragonAt(1, 3));
+		
+		first.moveBack();
+		
+		assertNull(gameTest.dragonAt(1, 3));
+		assertEquals(first, gameTest.dragonAt(1, 2));
+	}
+	
+	@Test
+	public void TestObjectivesFollowDragons() {
+		
+		gameTest = new GameLogic();
+		
+		gameTest.setMaze(new Maze(maze));
+		
+		gameTest.setDragons(new Dragon[2]);
+		
+		gameTest.getDragons()[0] = new Dragon(1,1,'D');
+		
+		gameTest.getDragons()[1] = new Dragon(1,3,'D');
+		
+		Dragon first = gameTest.getDragons()[0];
+		Dragon second = gameTest.getDragons()[1];
+		
+		assertFalse(gameTest.allDragonsAreDead());
+		assertTrue(gameTest.noDragonIsUponSword());
+		
+		first.setHasSword(true);
+		
+		assertFalse(gameTest.noDragonIsUponSword());
+		
+		first.setHasSword(false);
+		
+		assertTrue(gameTest.noDragonIsUponSword());
+		
+		first.die();
+		second.die();
+		
+		// Dying twice doesn't count twice.
+		second.die();
+		
+		assertTrue(gameTest.allDragonsAreDead());
+		
+		second.setAlive(true);
+		
+		assertFalse(gameTest.allDragonsAreDead());
+	}
+	
 	/**
 	 * AUXILIARES
 	 */
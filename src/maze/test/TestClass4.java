@@ -0,0 +1,319 @@
+package maze.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import maze.logic.ChunkedMaze;
+import maze.logic.Maze;
+import maze.logic.MazeRowSink;
+import maze.logic.ParallelMazeGenerator;
+import maze.logic.RandomStream;
+import maze.logic.StreamingMazeGenerator;
+
+import org.junit.Test;
+
+/**
+ * Test class that handles all maze-related testing (generation and storage).
+ */
+public class TestClass4 {
+
+	@Test
+	public void TestGeneratedMazeIsPerfect() {
+
+		Maze maze = new Maze(31);
+
+		maze.generate();
+
+		assertPerfect(maze);
+	}
+
+	@Test
+	public void TestParallelGeneratedMazeIsPerfect() {
+
+		// 3 x 3 regions, the last ones incomplete.
+		Maze maze = new Maze(2 * (2 * ParallelMazeGenerator.TILE + 10) + 1);
+
+		maze.setGenerator(new ParallelMazeGenerator(2));
+		maze.generate();
+
+		assertPerfect(maze);
+	}
+
+	@Test
+	public void TestStreamedMazeIsPerfect() {
+
+		final char tiles[][] = new char[31][];
+
+		new StreamingMazeGenerator(31, 31).generate(new RandomStream(7), new MazeRowSink() {
+			@Override
+			public void row(long index, char[] row) {
+				tiles[(int) index] = row.clone();
+			}
+		});
+
+		// A single exit, on the top wall, next to a cell.
+		int exits = 0;
+		for(int j = 0; j < 31; j++) {
+			if(tiles[0][j] == 'S') {
+				assertTrue(j % 2 == 1);
+				exits++;
+			}
+		}
+		assertEquals(1, exits);
+
+		assertPerfect(new Maze(tiles));
+	}
+
+	@Test
+	public void TestStreamedMazeRowCount() {
+
+		final long rows[] = new long[1];
+
+		new StreamingMazeGenerator(11, 200001).generate(new RandomStream(), new MazeRowSink() {
+			@Override
+			public void row(long index, char[] row) {
+				assertEquals(rows[0], index);
+				rows[0]++;
+			}
+		});
+
+		assertEquals(200001, rows[0]);
+	}
+
+	@Test
+	public void TestGeneratedExitIsOnFrontier() {
+
+		Maze maze = new Maze(21);
+
+		maze.generate();
+
+		int x = maze.getExit().getX();
+		int y = maze.getExit().getY();
+
+		assertTrue(x == 0 || y == 0 || x == 20 || y == 20);
+
+		assertTrue(x % 2 == 1 || y % 2 == 1);
+	}
+
+	@Test
+	public void TestPackedTilesMatchCharTiles() {
+
+		char tiles[][] = {
+				{ 'x', 'x', 'x', 'x', 'x' },
+				{ 'x', ' ', ' ', ' ', 'x' },
+				{ 'x', ' ', 'x', ' ', 'x' },
+				{ 'x', ' ', 'x', ' ', 'x' },
+				{ 'x', 'x', 'x', 'x', 'x' },
+		};
+
+		Maze maze = new Maze(tiles);
+
+		for(int i = 0; i < tiles.length; i++) {
+			assertArrayEquals(tiles[i], maze.getTiles()[i]);
+		}
+
+		maze.setTile(2, 2, ' ');
+		assertFalse(maze.isWall(2, 2));
+		assertTrue(maze.isWall(3, 2));
+	}
+
+	@Test
+	public void TestPackedTilesAreSerialized() throws Exception {
+
+		Maze maze = new Maze(21);
+		maze.generate();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(maze);
+		out.close();
+
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		Maze loaded = (Maze) in.readObject();
+		in.close();
+
+		assertEquals(maze.getSize(), loaded.getSize());
+		assertTrue(maze.getExit().isAt(loaded.getExit()));
+		for(int i = 0; i < maze.getSize(); i++) {
+			assertArrayEquals(maze.getTiles()[i], loaded.getTiles()[i]);
+		}
+	}
+
+	@Test
+	public void TestChunkedMazeIsRegeneratedAfterEviction() {
+
+		ChunkedMaze maze = new ChunkedMaze(7, 4, 1);
+		int span = 3 * ChunkedMaze.CHUNK;
+
+		boolean first[][] = new boolean[span][span];
+		for(int i = 0; i < span; i++) {
+			for(int j = 0; j < span; j++) {
+				first[i][j] = maze.isWall(i - ChunkedMaze.CHUNK, j - ChunkedMaze.CHUNK);
+			}
+		}
+
+		// Walks far away: the cache never grows past its capacity.
+		for(int step = 0; step < 100; step++) {
+			int x = step * ChunkedMaze.CHUNK;
+			maze.isWall(x, -x);
+			maze.focus(x, -x);
+			assertTrue(maze.getCachedChunks() <= 4);
+		}
+
+		for(int i = 0; i < span; i++) {
+			for(int j = 0; j < span; j++) {
+				assertEquals(first[i][j], maze.isWall(i - ChunkedMaze.CHUNK, j - ChunkedMaze.CHUNK));
+			}
+		}
+	}
+
+	@Test
+	public void TestChunkedMazeIsConnected() {
+
+		ChunkedMaze maze = new ChunkedMaze(3, 16, 4);
+		int chunks = 3;
+		int size = chunks * ChunkedMaze.CHUNK;
+
+		// Flood fill (over the cells) of a block of chunks around the origin.
+		boolean visited[][] = new boolean[size][size];
+		int stack[] = new int[size * size];
+		int top = 0;
+		int reached = 0;
+
+		stack[top++] = 1 * size + 1;
+		visited[1][1] = true;
+
+		while(top > 0) {
+			int tile = stack[--top];
+			int x = tile / size, y = tile % size;
+			reached++;
+
+			int dx[] = {-1, 0, 1, 0};
+			int dy[] = {0, 1, 0, -1};
+			for(int d = 0; d < 4; d++) {
+				int nx = x + dx[d], ny = y + dy[d];
+				if(nx >= 0 && ny >= 0 && nx < size && ny < size && !visited[nx][ny] && !maze.isWall(nx, ny)) {
+					visited[nx][ny] = true;
+					stack[top++] = nx * size + ny;
+				}
+			}
+		}
+
+		for(int i = 1; i < size; i += 2) {
+			for(int j = 1; j < size; j += 2) {
+				assertTrue(visited[i][j]);
+			}
+		}
+		assertTrue(reached > 0);
+	}
+
+	@Test
+	public void TestChunkedMazeIsReadConcurrently() throws Exception {
+
+		final int span = 4 * ChunkedMaze.CHUNK;
+
+		boolean expected[][] = new boolean[span][span];
+		ChunkedMaze alone = new ChunkedMaze(11, 64, 8);
+		for(int i = 0; i < span; i++) {
+			for(int j = 0; j < span; j++) {
+				expected[i][j] = alone.isWall(i, j);
+			}
+		}
+
+		// Few chunks kept: the threads keep evicting and generating them.
+		final ChunkedMaze maze = new ChunkedMaze(11, 3, 8);
+		final boolean read[][][] = new boolean[4][span][span];
+
+		Thread threads[] = new Thread[read.length];
+		for(int t = 0; t < threads.length; t++) {
+			final int first = t;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for(int k = 0; k < span; k++) {
+						int i = (k + first * ChunkedMaze.CHUNK) % span;
+						for(int j = 0; j < span; j++) {
+							read[first][i][j] = maze.isWall(i, j);
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread thread: threads) {
+			thread.join();
+		}
+
+		for(int t = 0; t < read.length; t++) {
+			for(int i = 0; i < span; i++) {
+				for(int j = 0; j < span; j++) {
+					assertEquals(expected[i][j], read[t][i][j]);
+				}
+			}
+		}
+		assertTrue(maze.getCachedChunks() <= 3 + threads.length);
+	}
+
+	/**
+	 * AUXILIARES
+	 */
+
+	/**
+	 * Asserts that every cell of the maze is reachable and that
+	 *   there is exactly one path between any two cells
+	 *   (that is, number of open walls = number of cells - 1).
+	 */
+	public static void assertPerfect(Maze maze) {
+
+		int size = maze.getSize();
+		int cells = (size - 1) / 2;
+
+		int openWalls = 0;
+		for(int i = 1; i < size - 1; i++) {
+			for(int j = 1; j < size - 1; j++) {
+				if((i % 2 == 0) != (j % 2 == 0) && maze.getTile(i, j) != 'x') {
+					openWalls++;
+				}
+			}
+		}
+
+		assertEquals(cells * cells - 1, openWalls);
+
+		// Flood fill from the first cell.
+		boolean visited[][] = new boolean[size][size];
+		int stack[] = new int[size * size];
+		int top = 0;
+		int reached = 0;
+
+		stack[top++] = 1 * size + 1;
+		visited[1][1] = true;
+
+		while(top > 0) {
+			int tile = stack[--top];
+			int x = tile / size, y = tile % size;
+
+			if(x % 2 == 1 && y % 2 == 1) {
+				reached++;
+			}
+
+			int dx[] = {-1, 0, 1, 0};
+			int dy[] = {0, 1, 0, -1};
+			for(int d = 0; d < 4; d++) {
+				int nx = x + dx[d], ny = y + dy[d];
+				if(nx > 0 && ny > 0 && nx < size - 1 && ny < size - 1 && !visited[nx][ny] && maze.getTile(nx, ny) != 'x') {
+					visited[nx][ny] = true;
+					stack[top++] = nx * size + ny;
+				}
+			}
+		}
+
+		assertEquals(cells * cells, reached);
+	}
+}
@@ -0,0 +1,911 @@
+package maze.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import maze.io.Autosave;
+import maze.io.BackgroundSaver;
+import maze.io.GameIO;
+import maze.io.SaveFormat;
+import maze.io.SaveListener;
+import maze.logic.BoardCompositor;
+import maze.logic.Dragon;
+import maze.logic.Element;
+import maze.logic.GameConfig;
+import maze.logic.GameLogic;
+import maze.logic.Hero;
+import maze.logic.Maze;
+import maze.logic.ParallelMazeGenerator;
+import maze.perf.LatencyHistogram;
+import maze.sim.BatchSimulator;
+import maze.sim.SeekerPolicy;
+import maze.sim.SimulationReport;
+
+import org.junit.Test;
+
+/**
+ * Test class that handles all whole-game-related testing (seeding, set up, turns).
+ */
+public class TestClass5 {
+
+	private GameLogic gameTest;
+
+	@Test
+	public void TestSameSeedSameGame() {
+
+		GameLogic other = newGame(21, 1, 0.1, 42);
+
+		gameTest = newGame(21, 1, 0.1, 42);
+
+		for(int i = 0; i < 21; i++) {
+			assertArrayEquals(other.getMaze().getTiles()[i], gameTest.getMaze().getTiles()[i]);
+		}
+
+		assertTrue(other.getMaze().getExit().isAt(gameTest.getMaze().getExit()));
+		assertEquals(other.getHero(), gameTest.getHero());
+		assertEquals(other.getSword(), gameTest.getSword());
+
+		for(int turn = 0; turn < 50; turn++) {
+
+			other.updateAllDragons();
+			gameTest.updateAllDragons();
+
+			for(int i = 0; i < gameTest.getDragons().length; i++) {
+				assertEquals(other.getDragons()[i], gameTest.getDragons()[i]);
+				assertEquals(other.getDragons()[i].isAwake(), gameTest.getDragons()[i].isAwake());
+			}
+		}
+	}
+
+	@Test
+	public void TestCrowdedBoardPlacesEveryone() {
+
+		// 11x11 maze: 49 floor tiles, 45 dragons + hero + sword.
+		gameTest = newGame(11, 1, 0.38, 5);
+
+		assertEquals(45, gameTest.getDragons().length);
+
+		boolean taken[][] = new boolean[11][11];
+
+		Element placed[] = new Element[gameTest.getDragons().length + 2];
+		placed[0] = gameTest.getHero();
+		placed[1] = gameTest.getSword();
+		for(int i = 0; i < gameTest.getDragons().length; i++) {
+			placed[i + 2] = gameTest.getDragons()[i];
+		}
+
+		for(Element element: placed) {
+			assertFalse(gameTest.getMaze().isWall(element.getX(), element.getY()));
+			assertFalse(taken[element.getX()][element.getY()]);
+			taken[element.getX()][element.getY()] = true;
+		}
+
+		for(Dragon dragon: gameTest.getDragons()) {
+			assertFalse(dragon.isAt(gameTest.getHero()));
+		}
+	}
+
+	@Test
+	public void TestOvercrowdedBoardIsReported() {
+
+		try {
+			newGame(11, 1, 0.9, 5);
+			fail("expected IllegalStateException");
+		}
+		catch(IllegalStateException e) {
+			assertTrue(e.getMessage().contains("free cells"));
+		}
+	}
+
+	@Test
+	public void TestArrayDragonsMatchObjectDragons() {
+
+		GameLogic objects = newGame(31, 1, 0.1, 9);
+
+		gameTest = newGame(31, 1, 0.1, 9, GameConfig.ARRAY_DRAGONS, 1);
+
+		assertEquals(objects.getDragonCount(), gameTest.getDragonCount());
+
+		for(int turn = 0; turn < 50; turn++) {
+
+			objects.updateAllDragons();
+			gameTest.updateAllDragons();
+
+			if(turn == 10) {
+				objects.killDragon(3);
+				gameTest.killDragon(3);
+			}
+
+			for(int i = 0; i < gameTest.getDragonCount(); i++) {
+				Dragon expected = objects.getDragons()[i];
+				Dragon actual = gameTest.getDragons()[i];
+
+				assertEquals(expected, actual);
+				assertEquals(expected.isAwake(), actual.isAwake());
+				assertEquals(expected.isAlive(), actual.isAlive());
+				assertEquals(expected.getSymbol(), actual.getSymbol());
+			}
+		}
+
+		assertTrue(gameTest.dragonIndexAt(gameTest.getDragon(3).getX(), gameTest.getDragon(3).getY()) != 3);
+	}
+
+	@Test
+	public void TestParallelDragonsMatchSequential() {
+
+		for(int storage = GameConfig.OBJECT_DRAGONS; storage <= GameConfig.ARRAY_DRAGONS; storage++) {
+
+			GameLogic sequential = newGame(151, 1, 0.3, 11, storage, 1);
+			GameLogic twoThreads = newGame(151, 1, 0.3, 11, storage, 2);
+			gameTest = newGame(151, 1, 0.3, 11, storage, 4);
+
+			for(int turn = 0; turn < 20; turn++) {
+
+				sequential.updateAllDragons();
+				twoThreads.updateAllDragons();
+				gameTest.updateAllDragons();
+
+				for(int i = 0; i < gameTest.getDragonCount(); i++) {
+					assertEquals(sequential.getDragon(i), gameTest.getDragon(i));
+					assertEquals(twoThreads.getDragon(i), gameTest.getDragon(i));
+					assertEquals(sequential.getDragon(i).isAwake(), gameTest.getDragon(i).isAwake());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void TestGameThreadsAreShutDown() throws InterruptedException {
+
+		Set<Thread> before = Thread.getAllStackTraces().keySet();
+
+		// The threads of the generator are only kept while the maze is carved.
+		GameConfig config = new GameConfig(2 * ParallelMazeGenerator.TILE + 45, 2, 0.01);
+		config.setSeed(21);
+		config.setMode(GameConfig.HEADLESS);
+		config.setMazeGenerator(GameConfig.PARALLEL_GENERATOR);
+		config.setDragonThreads(3);
+
+		gameTest = new GameLogic(config);
+		gameTest.init();
+		assertTrue(poolThreadsEnd(before));
+
+		// Those of the dragons, until the game ends.
+		for(int turn = 0; turn < 5; turn++) {
+			gameTest.step(turn % 4);
+		}
+		gameTest.stopThreads();
+		assertTrue(poolThreadsEnd(before));
+
+		// And again if it goes on.
+		assertEquals(GameLogic.PLAYING, gameTest.step(0));
+		gameTest.stopThreads();
+		assertTrue(poolThreadsEnd(before));
+	}
+
+	@Test
+	public void TestStepReportsVictory() {
+
+		char tiles[][] = {
+				{ 'x', 'x', 'x', 'x', 'x', 'x', 'x' },
+				{ 'x', ' ', ' ', ' ', ' ', ' ', 'x' },
+				{ 'x', ' ', 'x', 'x', 'x', ' ', 'x' },
+				{ 'x', ' ', ' ', ' ', ' ', ' ', 'x' },
+				{ 'x', ' ', 'x', 'x', 'x', ' ', 'x' },
+				{ 'x', ' ', ' ', ' ', ' ', ' ', 'x' },
+				{ 'x', 'x', 'x', 'x', 'x', 'x', 'x' },
+		};
+
+		gameTest = new GameLogic();
+		gameTest.setMaze(new Maze(tiles));
+		gameTest.getMaze().setExit(new Element(0, 3, 'S'));
+		gameTest.setHero(new Hero(3, 1, 'A'));
+		gameTest.getHero().setHasSword(true);
+		gameTest.setDragons(new Dragon[0]);
+
+		// UP, UP, RIGHT, RIGHT, UP
+		int commands[] = {0, 0, 1, 1, 0};
+
+		for(int i = 0; i < commands.length - 1; i++) {
+			assertEquals(GameLogic.PLAYING, gameTest.step(commands[i]));
+		}
+
+		assertEquals(GameLogic.WON, gameTest.step(commands[commands.length - 1]));
+	}
+
+	@Test
+	public void TestHeadlessGamesAreReplayable() {
+
+		GameLogic other = newGame(21, 2, 0.05, 77);
+		gameTest = newGame(21, 2, 0.05, 77);
+
+		java.util.Random commands = new java.util.Random(5);
+
+		int outcome = GameLogic.PLAYING;
+		for(int turn = 0; turn < 2000 && outcome == GameLogic.PLAYING; turn++) {
+
+			int command = commands.nextInt(5);
+
+			outcome = gameTest.step(command);
+			assertEquals(outcome, other.step(command));
+			assertEquals(other.getHero(), gameTest.getHero());
+		}
+
+		assertEquals(outcome == GameLogic.LOST, !gameTest.getHero().isAlive());
+		assertEquals(outcome == GameLogic.WON, gameTest.getHero().hasWon());
+	}
+
+	@Test
+	public void TestBatchSimulationIsReproducible() throws IOException {
+
+		GameConfig config = new GameConfig(21, 2, 0.02);
+
+		// The simulated games aren't autosaved, even if the base configuration is.
+		File autosaved = File.createTempFile("maze", "");
+		autosaved.delete();
+		config.setAutosave(autosaved.getPath());
+
+		BatchSimulator oneThread = new BatchSimulator(new SeekerPolicy(), 500, 1);
+		BatchSimulator threeThreads = new BatchSimulator(new SeekerPolicy(), 500, 3);
+
+		SimulationReport expected = oneThread.run(config, 300, 123);
+		SimulationReport actual = threeThreads.run(config, 300, 123);
+
+		oneThread.shutdown();
+		threeThreads.shutdown();
+
+		assertEquals(300, actual.getGames());
+		assertEquals(300, actual.getOutcomes(SimulationReport.WON) + actual.getOutcomes(SimulationReport.KILLED)
+				+ actual.getOutcomes(SimulationReport.OUT_OF_TURNS));
+
+		assertEquals(expected.toString(), actual.toString());
+		assertTrue(actual.getOutcomes(SimulationReport.WON) > 0);
+
+		assertFalse(new File(autosaved.getPath() + ".ckpt").exists());
+		assertFalse(new File(autosaved.getPath() + ".journal").exists());
+	}
+
+	@Test
+	public void TestBoardOnlyChangesWhereReported() {
+
+		for(int storage = GameConfig.OBJECT_DRAGONS; storage <= GameConfig.ARRAY_DRAGONS; storage++) {
+
+			gameTest = newGame(21, 2, 0.05, 31, storage, 1);
+
+			gameTest.setGameBoard();
+			assertTrue(gameTest.getBoardChanges().isFullRedraw());
+			assertBoardEquals(fullBoard(gameTest), gameTest.getBoard());
+
+			java.util.Random commands = new java.util.Random(9);
+
+			int outcome = GameLogic.PLAYING;
+			for(int turn = 0; turn < 300 && outcome == GameLogic.PLAYING; turn++) {
+
+				char before[][] = fullBoard(gameTest);
+
+				outcome = gameTest.step(commands.nextInt(5));
+				gameTest.setGameBoard();
+
+				char after[][] = fullBoard(gameTest);
+				assertBoardEquals(after, gameTest.getBoard());
+
+				// The change list has exactly the cells that changed.
+				boolean reported[][] = new boolean[21][21];
+				BoardCompositor changes = gameTest.getBoardChanges();
+				assertFalse(changes.isFullRedraw());
+				for(int i = 0; i < changes.getChangeCount(); i++) {
+					reported[changes.getChangedX(i)][changes.getChangedY(i)] = true;
+				}
+				for(int i = 0; i < 21; i++) {
+					for(int j = 0; j < 21; j++) {
+						assertEquals(before[i][j] != after[i][j], reported[i][j]);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void TestLatencyPercentiles() {
+
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getPercentile(50));
+
+		// 1 us to 1000 us, one of each.
+		for(int i = 1000; i >= 1; i--) {
+			histogram.record(i * 1000L);
+		}
+
+		assertEquals(1000, histogram.getCount());
+		assertEquals(1000000, histogram.getMax());
+		assertEquals(1000000, histogram.getPercentile(100));
+
+		// Within the precision of the histogram (1/64), never below the real value.
+		long p50 = histogram.getPercentile(50), p99 = histogram.getPercentile(99);
+		assertTrue(p50 >= 500000 && p50 <= 500000 + 500000 / 64);
+		assertTrue(p99 >= 990000 && p99 <= 990000 + 990000 / 64);
+
+		// Small values are exact.
+		histogram.reset();
+		histogram.record(3);
+		histogram.record(7);
+		assertEquals(3, histogram.getPercentile(50));
+		assertEquals(7, histogram.getPercentile(99));
+	}
+
+	@Test
+	public void TestSavedGamePlaysOn() throws IOException {
+
+		gameTest = newGame(21, 2, 0.05, 11);
+		play(gameTest, 15);
+
+		File file = File.createTempFile("maze", ".sav");
+		file.deleteOnExit();
+
+		assertEquals(0, new GameIO().save(gameTest, file.getPath(), ".sav"));
+		assertEquals(SaveFormat.MAGIC, header(file));
+
+		GameLogic loaded = new GameLogic();
+		assertEquals(0, new GameIO().loadGame(loaded, file.getPath()));
+		assertPlaysTheSame(gameTest, loaded);
+	}
+
+	@Test
+	public void TestSavedArrayDragonsAreKeptInArrays() throws IOException {
+
+		gameTest = newGame(21, 2, 0.05, 13, GameConfig.ARRAY_DRAGONS, 1);
+		play(gameTest, 15);
+		assertTrue(gameTest.getDragonStore() != null);
+
+		File file = File.createTempFile("maze", ".sav");
+		file.deleteOnExit();
+
+		assertEquals(0, new GameIO().save(gameTest, file.getPath(), ".sav"));
+
+		GameLogic loaded = new GameLogic();
+		assertEquals(0, new GameIO().loadGame(loaded, file.getPath()));
+		assertTrue(loaded.getDragonStore() != null);
+		assertPlaysTheSame(gameTest, loaded);
+	}
+
+	@Test
+	public void TestSaveOfAHugeMazeIsRejected() throws IOException {
+
+		gameTest = newGame(21, 2, 0.05, 14);
+
+		ByteArrayOutputStream saved = new ByteArrayOutputStream();
+		new SaveFormat().write(gameTest, Channels.newChannel(saved));
+		byte save[] = saved.toByteArray();
+
+		int at = mazeSizeAt(save, 21);
+		assertTrue(at > 0);
+
+		// The tiles of the maze don't fit in an int.
+		assertRejected(patch(save, at, 46341, -1));
+		assertRejected(patch(save, at, Integer.MAX_VALUE, -1));
+
+		// The walls don't match the size.
+		assertRejected(patch(save, at, 40000, -1));
+
+		// Claims 200 MB of walls it doesn't hold.
+		assertRejected(patch(save, at, 40000, ((40000 * 40000) >> 6) + 1));
+
+		assertEquals(21, new SaveFormat().read(Channels.newChannel(new ByteArrayInputStream(save))).getMaze().getSize());
+	}
+
+	@Test
+	public void TestSaveWithHugeCountsIsRejected() throws IOException {
+
+		gameTest = newGame(21, 2, 0.05, 14);
+
+		ByteArrayOutputStream saved = new ByteArrayOutputStream();
+		new SaveFormat().write(gameTest, Channels.newChannel(saved));
+		byte save[] = saved.toByteArray();
+
+		ByteBuffer record = ByteBuffer.allocate(13);
+
+		// The keys follow the seed.
+		record.putLong(0, 14);
+		int keys = indexOf(save, record.array(), 8) + 8;
+		assertTrue(keys > 8);
+		assertEquals(gameTest.getConfig().getGameKeyCodes().length, ByteBuffer.wrap(save).getInt(keys));
+
+		// The first dragon, right after their count.
+		record.putInt(0, gameTest.getDragonCount()).put(4, (byte) 1);
+		record.putInt(5, gameTest.getDragon(0).getX()).putInt(9, gameTest.getDragon(0).getY());
+		int dragons = indexOf(save, record.array(), 13);
+		assertTrue(dragons > 0);
+
+		// The first task: count, present, done, length and description.
+		int description = indexOf(save, gameTest.getTasks()[0].getDescription().getBytes("UTF-8"), -1);
+		int tasks = description - 10;
+		assertEquals(gameTest.getTasks().length, ByteBuffer.wrap(save).getInt(tasks));
+
+		// Claim (much) more than the save holds.
+		assertRejected(withInt(save, keys, Integer.MAX_VALUE / 4));
+		assertRejected(withInt(save, dragons, Integer.MAX_VALUE));
+		assertRejected(withInt(save, tasks, Integer.MAX_VALUE));
+		assertRejected(withInt(save, description - 4, Integer.MAX_VALUE));
+
+		// More keys than the buffer of the reader holds, in a save big enough for them.
+		byte padded[] = Arrays.copyOf(withInt(save, keys, 30000), save.length + 200000);
+		Arrays.fill(padded, save.length, padded.length, (byte) -1);
+		assertRejected(padded);
+	}
+
+	@Test
+	public void TestOldSaveIsMigrated() throws IOException {
+
+		gameTest = newGame(21, 2, 0.05, 12);
+		play(gameTest, 15);
+
+		// Saved with Java serialization, as before the binary format.
+		File file = File.createTempFile("maze", ".sav");
+		file.deleteOnExit();
+		ObjectOutputStream os = new ObjectOutputStream(new FileOutputStream(file));
+		os.writeObject(gameTest);
+		os.close();
+
+		GameLogic loaded = new GameLogic();
+		assertEquals(0, new GameIO().loadGame(loaded, file.getPath()));
+
+		assertEquals(0, new GameIO().migrate(file.getPath()));
+		assertEquals(SaveFormat.MAGIC, header(file));
+
+		GameLogic migrated = new GameLogic();
+		assertEquals(0, new GameIO().loadGame(migrated, file.getPath()));
+
+		assertPlaysTheSame(loaded, migrated);
+		assertPlaysTheSame(gameTest, migrated);
+	}
+
+	@Test
+	public void TestBackgroundSaveKeepsTheGameAsItWas() throws Exception {
+
+		gameTest = newGame(21, 2, 0.05, 13);
+		play(gameTest, 10);
+
+		File file = File.createTempFile("maze", ".sav");
+		file.deleteOnExit();
+
+		final String result[] = new String[2];
+		SaveListener listener = new SaveListener() {
+			public void saved(String fileName) {
+				result[0] = fileName;
+			}
+
+			public void failed(String fileName, IOException e) {
+				result[1] = fileName;
+			}
+		};
+
+		BackgroundSaver saver = new BackgroundSaver();
+
+		GameLogic expected = gameTest.snapshot();
+		Future<?> save = saver.save(gameTest, file.getPath(), ".sav", listener);
+
+		// The game goes on while it is saved.
+		play(gameTest, 10);
+
+		save.get();
+		assertEquals(file.getPath(), result[0]);
+		assertEquals(null, result[1]);
+		assertFalse(new File(file.getPath() + ".tmp").exists());
+
+		GameLogic loaded = new GameLogic();
+		assertEquals(0, new GameIO().loadGame(loaded, file.getPath()));
+		expected.setBoard(new char[21][21]);
+		expected.setGameBoard();
+		assertPlaysTheSame(expected, loaded);
+
+		// No folder, no save: the listener is told.
+		String missing = new File(file.getParent(), "no folder" + File.separator + "game.sav").getPath();
+		saver.save(gameTest, missing, ".sav", listener).get();
+		assertEquals(missing, result[1]);
+		assertFalse(new File(missing).exists());
+
+		// Nor if the writer fails in an unexpected way.
+		final Throwable cause[] = {null};
+		saver.save(new GameLogic() {
+			private static final long serialVersionUID = 1;
+
+			@Override
+			public GameLogic snapshot() {
+				return this;
+			}
+
+			@Override
+			public GameConfig getConfig() {
+				throw new IllegalStateException("Broken game");
+			}
+		}, file.getPath(), ".sav", new SaveListener() {
+			public void saved(String fileName) {
+			}
+
+			public void failed(String fileName, IOException e) {
+				cause[0] = e.getCause();
+			}
+		}).get();
+		assertTrue(cause[0] instanceof IllegalStateException);
+
+		saver.finish();
+	}
+
+	@Test
+	public void TestAutosavedGameIsResumed() throws IOException {
+
+		File folder = File.createTempFile("maze", "");
+		folder.delete();
+		folder.mkdir();
+		String name = new File(folder, "game").getPath();
+
+		gameTest = newAutosavedGame(name, 2);
+
+		// Past a checkpoint, then the program stops (its files are left, only
+		// closed so that the two games don't write to them at the same time).
+		int turns = Autosave.CHECKPOINT_EVERY + 44;
+		for(int turn = 0; turn < turns; turn++) {
+			assertEquals(GameLogic.PLAYING, gameTest.step((turn * 7 / 3) % 4));
+		}
+		gameTest.setGameBoard();
+		gameTest.stopAutosave(false);
+
+		// Zeros left at the end of the journal by a crash aren't commands.
+		FileOutputStream journal = new FileOutputStream(name + ".journal", true);
+		journal.write(new byte[8]);
+		journal.close();
+
+		GameLogic resumed = newAutosavedGame(name, 2);
+		resumed.setGameBoard();
+
+		assertPlaysTheSame(gameTest, resumed);
+
+		resumed.stopAutosave(true);
+		assertFalse(new File(name + ".ckpt").exists());
+		assertFalse(new File(name + ".journal").exists());
+
+		// Once the files are deleted, there is nothing to resume.
+		assertEquals(-1, new Autosave(name).resume(newGame(21, 2, 0.03, 2)));
+		assertTrue(folder.delete());
+	}
+
+	@Test
+	public void TestFailedAutosaveIsTriedAgain() throws IOException {
+
+		File folder = File.createTempFile("maze", "");
+		folder.delete();
+		String name = new File(folder, "game").getPath();
+
+		// No folder: the first checkpoint can't be written.
+		gameTest = newAutosavedGame(name, 2);
+		assertFalse(new File(name + ".ckpt").exists());
+
+		folder.mkdir();
+
+		// It isn't tried every turn, but the game is autosaved again.
+		int turns = Autosave.CHECKPOINT_EVERY + 44;
+		for(int turn = 0; turn < turns; turn++) {
+			assertEquals(GameLogic.PLAYING, gameTest.step((turn * 7 / 3) % 4));
+			if(turn == 10) {
+				assertFalse(new File(name + ".ckpt").exists());
+			}
+		}
+		gameTest.setGameBoard();
+		gameTest.stopAutosave(false);
+		assertTrue(new File(name + ".ckpt").exists());
+
+		GameLogic resumed = newAutosavedGame(name, 2);
+		resumed.setGameBoard();
+
+		assertPlaysTheSame(gameTest, resumed);
+
+		resumed.stopAutosave(true);
+		assertTrue(folder.delete());
+	}
+
+	@Test
+	public void TestAutosaveStoppedBetweenRenamesIsResumed() throws IOException {
+
+		File folder = File.createTempFile("maze", "");
+		folder.delete();
+		folder.mkdir();
+		String name = new File(folder, "game").getPath();
+
+		gameTest = newAutosavedGame(name, 2);
+
+		int turns = Autosave.CHECKPOINT_EVERY + 44;
+		for(int turn = 0; turn < turns; turn++) {
+			gameTest.step((turn * 7 / 3) % 4);
+		}
+		gameTest.setGameBoard();
+		gameTest.stopAutosave(false);
+
+		// As if the program stopped once the new checkpoint was renamed, but
+		// not its journal: the journal there is the one of the last checkpoint.
+		File journal = new File(name + ".journal");
+		assertTrue(journal.renameTo(new File(name + ".next.journal")));
+		FileOutputStream old = new FileOutputStream(journal);
+		old.write(new byte[] {0x4D, 0x5A, 0x4A, 0x4E, 0, 1, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0});
+		old.close();
+
+		GameLogic resumed = newAutosavedGame(name, 2);
+		resumed.setGameBoard();
+
+		assertFalse(new File(name + ".next.journal").exists());
+		assertPlaysTheSame(gameTest, resumed);
+
+		resumed.stopAutosave(true);
+		assertTrue(folder.delete());
+	}
+
+	@Test
+	public void TestAutosavedGameOverIsNotResumed() throws IOException {
+
+		File folder = File.createTempFile("maze", "");
+		folder.delete();
+		folder.mkdir();
+		String name = new File(folder, "game").getPath();
+
+		// The hero is killed, and the program stops before the files are deleted.
+		gameTest = newAutosavedGame(name, 8);
+
+		int outcome = GameLogic.PLAYING;
+		for(int turn = 0; turn < 400 && outcome == GameLogic.PLAYING; turn++) {
+			outcome = gameTest.step((turn * 7 / 3) % 4);
+		}
+		assertEquals(GameLogic.LOST, outcome);
+		gameTest.stopAutosave(false);
+
+		// The journal replays into the defeat: a new game is started instead.
+		GameLogic next = newAutosavedGame(name, 8);
+		assertTrue(next.getHero().isAlive());
+		assertFalse(next.getHero().hasWon());
+		assertEquals(GameLogic.PLAYING, next.step(0));
+
+		next.stopAutosave(true);
+		assertTrue(folder.delete());
+	}
+
+	/**
+	 * AUXILIARES
+	 */
+	private GameLogic newGame(int size, int difficulty, double dragonPerc, long seed) {
+		return newGame(size, difficulty, dragonPerc, seed, GameConfig.OBJECT_DRAGONS, 1);
+	}
+
+	private GameLogic newGame(int size, int difficulty, double dragonPerc, long seed, int storage, int threads) {
+
+		GameConfig config = new GameConfig(size, difficulty, dragonPerc);
+		config.setSeed(seed);
+		config.setMode(GameConfig.HEADLESS);
+		config.setDragonStorage(storage);
+		config.setDragonThreads(threads);
+
+		GameLogic game = new GameLogic(config);
+		game.init();
+
+		return game;
+	}
+
+	private GameLogic newAutosavedGame(String name, long seed) {
+
+		GameConfig config = new GameConfig(21, 2, 0.03);
+		config.setSeed(seed);
+		config.setMode(GameConfig.HEADLESS);
+		config.setAutosave(name);
+
+		GameLogic game = new GameLogic(config);
+		game.init();
+
+		return game;
+	}
+
+	// Plays the same turns in both games, checking they stay the same.
+	private void assertPlaysTheSame(GameLogic expected, GameLogic actual) {
+
+		for(int turn = 0; turn < 30 && expected.getHero().isAlive(); turn++) {
+
+			assertEquals(expected.getHero(), actual.getHero());
+			assertEquals(expected.getHero().hasSword(), actual.getHero().hasSword());
+			assertEquals(expected.getDragonCount(), actual.getDragonCount());
+			for(int i = 0; i < expected.getDragonCount(); i++) {
+				assertEquals(expected.getDragons()[i], actual.getDragons()[i]);
+				assertEquals(expected.getDragons()[i].isAwake(), actual.getDragons()[i].isAwake());
+				assertEquals(expected.getDragons()[i].isAlive(), actual.getDragons()[i].isAlive());
+			}
+			for(int i = 0; i < expected.getMaze().getSize(); i++) {
+				assertArrayEquals(expected.getBoard()[i], actual.getBoard()[i]);
+			}
+
+			int command = turn % 4;
+			assertEquals(expected.step(command), actual.step(command));
+			expected.setGameBoard();
+			actual.setGameBoard();
+		}
+	}
+
+	private void play(GameLogic game, int turns) {
+		for(int turn = 0; turn < turns && game.getHero().isAlive(); turn++) {
+			game.step((turn * 7) % 4);
+			game.setGameBoard();
+		}
+	}
+
+	// Index of the size of the maze in a save: a present maze of that size, with its count of walls after it.
+	private int mazeSizeAt(byte save[], int size) {
+
+		for(int i = 1; i + 4 <= save.length; i++) {
+			if(save[i - 1] == 1 && ByteBuffer.wrap(save).getInt(i) == size && wallCountAt(save, i) > 0) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	// Index of the count of walls of the maze whose size is at the given index, -1 if not found.
+	private int wallCountAt(byte save[], int at) {
+
+		ByteBuffer buffer = ByteBuffer.wrap(save);
+		int size = buffer.getInt(at);
+
+		for(int j = at + 5; j + 4 <= save.length && j < at + 64; j++) {
+			if(buffer.getInt(j) == ((size * size) >> 6) + 1) {
+				return j;
+			}
+		}
+
+		return -1;
+	}
+
+	// Copy of a save with another size of the maze (and count of walls, if not -1).
+	private byte[] patch(byte save[], int at, int size, int count) {
+
+		ByteBuffer buffer = ByteBuffer.wrap(save.clone());
+		if(count != -1) {
+			buffer.putInt(wallCountAt(save, at), count);
+		}
+		buffer.putInt(at, size);
+
+		return buffer.array();
+	}
+
+	// Reads a save on another thread, which must end (in 5 seconds) with an IOException.
+	private void assertRejected(final byte save[]) {
+
+		final Throwable thrown[] = {null};
+
+		Thread reader = new Thread(new Runnable() {
+			public void run() {
+				try {
+					new SaveFormat().read(Channels.newChannel(new ByteArrayInputStream(save)));
+				} catch (Throwable e) {
+					thrown[0] = e;
+				}
+			}
+		});
+		reader.setDaemon(true);
+		reader.start();
+
+		try {
+			reader.join(5000);
+		} catch (InterruptedException e) {
+			fail("Interrupted");
+		}
+
+		assertFalse(reader.isAlive());
+		assertTrue(thrown[0] instanceof IOException);
+	}
+
+	// Copy of a save with the int at the given index changed.
+	private byte[] withInt(byte save[], int at, int value) {
+		ByteBuffer buffer = ByteBuffer.wrap(save.clone());
+		buffer.putInt(at, value);
+		return buffer.array();
+	}
+
+	// Index of the first [length] bytes of a pattern (all if -1) in a save, -1 if not found.
+	private int indexOf(byte save[], byte pattern[], int length) {
+
+		if(length < 0) {
+			length = pattern.length;
+		}
+
+		for(int i = 0; i + length <= save.length; i++) {
+			int j = 0;
+			while(j < length && save[i + j] == pattern[j]) {
+				j++;
+			}
+			if(j == length) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	// Waits (up to 5 seconds) for the threads of pools started after [before] to end.
+	private boolean poolThreadsEnd(Set<Thread> before) throws InterruptedException {
+
+		for(int wait = 0; wait < 500; wait++) {
+
+			boolean running = false;
+			for(Thread thread: Thread.getAllStackTraces().keySet()) {
+				if(!before.contains(thread) && thread.getName().startsWith("ForkJoinPool-")) {
+					running = true;
+				}
+			}
+
+			if(!running) {
+				return true;
+			}
+			Thread.sleep(10);
+		}
+
+		return false;
+	}
+
+	private int header(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		int header = (in.read() << 24) | (in.read() << 16) | (in.read() << 8) | in.read();
+		in.close();
+		return header;
+	}
+
+	// Board as it was built before BoardCompositor: the whole maze, then every element.
+	private char[][] fullBoard(GameLogic game) {
+
+		int size = game.getMaze().getSize();
+		char board[][] = new char[size][size];
+
+		for(int i = 0; i < size; i++) {
+			for(int j = 0; j < size; j++) {
+				board[i][j] = game.getMaze().getTile(i, j);
+			}
+		}
+
+		Element exit = game.getMaze().getExit();
+		board[exit.getX()][exit.getY()] = exit.getSymbol();
+
+		Hero hero = game.getHero();
+		board[hero.getX()][hero.getY()] = hero.getSymbol();
+
+		if(!hero.hasEagle() && game.getEagle().isAlive()) {
+			board[game.getEagle().getX()][game.getEagle().getY()] = game.getEagle().getSymbol();
+		}
+
+		for(Dragon dragon: game.getDragons()) {
+			if(dragon.isAlive()) {
+				board[dragon.getX()][dragon.getY()] = dragon.getSymbol();
+			}
+		}
+
+		if(!hero.hasSword() && game.noDragonIsUponSword() && !game.getEagle().hasSword()) {
+			board[game.getSword().getX()][game.getSword().getY()] = game.getSword().getSymbol();
+		}
+
+		return board;
+	}
+
+	private void assertBoardEquals(char expected[][], char actual[][]) {
+		for(int i = 0; i < expected.length; i++) {
+			assertArrayEquals(expected[i], actual[i]);
+		}
+	}
+}
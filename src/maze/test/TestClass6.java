@@ -0,0 +1,396 @@
+package maze.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import maze.cli.Output;
+import maze.gui.InputHandler;
+import maze.gui.SpriteTable;
+import maze.gui.TextureCache;
+import maze.logic.Dragon;
+import maze.logic.GameConfig;
+import maze.logic.GameLogic;
+import maze.logic.Task;
+
+import org.junit.Test;
+
+/**
+ * Test class that handles all input- and output-related testing (console, board panel, input handlers).
+ */
+public class TestClass6 {
+
+	private static final String NEWLINE = System.getProperty("line.separator");
+
+	private GameLogic gameTest;
+
+	@Test
+	public void TestPlainFramesAreWholeFrames() {
+
+		gameTest = newGame(11, 7);
+
+		Output out = new Output(false);
+
+		for(int turn = 0; turn < 10; turn++) {
+			assertEquals(plainFrame(gameTest), draw(out, gameTest));
+			gameTest.step(turn % 4);
+			gameTest.setGameBoard();
+		}
+	}
+
+	@Test
+	public void TestAnsiFramesOnlyRedrawChanges() {
+
+		gameTest = newGame(11, 7);
+
+		Output out = new Output(true, 40);
+		List<StringBuilder> screen = new ArrayList<StringBuilder>();
+
+		String first = draw(out, gameTest);
+		assertTrue(first.startsWith("\u001b[H\u001b[2J"));
+		assertEquals(plainFrame(gameTest), first.substring("\u001b[H\u001b[2J".length()));
+		play(screen, first);
+
+		int partial = 0;
+		for(int turn = 0; turn < 10; turn++) {
+
+			gameTest.step(turn % 4);
+			gameTest.setGameBoard();
+
+			String frame = draw(out, gameTest);
+			play(screen, frame);
+
+			if(!frame.contains("\u001b[2J")) {
+				partial++;
+			}
+
+			// The screen shows the frame, whether it was written whole or not.
+			String lines[] = plainFrame(gameTest).split(NEWLINE);
+			for(int i = 0; i < lines.length; i++) {
+				assertEquals(lines[i], screen.get(i).toString());
+			}
+			assertEquals(lines.length, screen.size());
+		}
+
+		assertTrue(partial > 0);
+	}
+
+	@Test
+	public void TestAnsiFramesTallerThanTheScreenAreWhole() {
+
+		gameTest = newGame(21, 7);
+
+		// 11 lines of menu and goals, 21 of board and the prompt don't fit in 24 rows.
+		Output out = new Output(true, Output.DEFAULT_ROWS);
+
+		for(int turn = 0; turn < 5; turn++) {
+			String frame = draw(out, gameTest);
+			assertFalse(frame.contains("\u001b["));
+			assertEquals(plainFrame(gameTest), frame);
+			gameTest.step(turn % 4);
+			gameTest.setGameBoard();
+		}
+	}
+
+	@Test
+	public void TestSpriteCodesFollowTheTurns() {
+
+		for(long seed = 1; seed <= 3; seed++) {
+
+			gameTest = newGame(21, 2, 0.06, seed);
+
+			SpriteTable sprites = new SpriteTable(gameTest);
+			sprites.update();
+			assertPicturesOf(gameTest, sprites);
+
+			// Only the tiles of each turn are worked out again, and yet all are right.
+			for(int turn = 0; turn < 300 && gameTest.getHero().isAlive(); turn++) {
+				if(gameTest.step((turn * 7 / 3) % 5) != GameLogic.PLAYING) {
+					break;
+				}
+				gameTest.setGameBoard();
+				sprites.update(gameTest.getBoardChanges());
+
+				assertPicturesOf(gameTest, sprites);
+			}
+		}
+	}
+
+	@Test
+	public void TestSpriteTablePicksEveryPicture() {
+
+		assertEquals(TextureCache.FLOOR, SpriteTable.texture(SpriteTable.TILE));
+		assertEquals(TextureCache.WALL, SpriteTable.texture(SpriteTable.TILE | SpriteTable.WALL));
+		assertEquals(TextureCache.EXIT, SpriteTable.texture(SpriteTable.EXIT | SpriteTable.WALL));
+		assertEquals(TextureCache.SWORD, SpriteTable.texture(SpriteTable.SWORD));
+		assertEquals(TextureCache.HERO_WITH_SWORD_AND_EAGLE,
+				SpriteTable.texture(SpriteTable.HERO | SpriteTable.ARMED | SpriteTable.WITH_EAGLE));
+		assertEquals(TextureCache.EAGLE_UPON_WALL_WITH_SWORD,
+				SpriteTable.texture(SpriteTable.EAGLE | SpriteTable.WALL | SpriteTable.ARMED));
+		assertEquals(TextureCache.EAGLE_UPON_DRAGON_WITH_SWORD_ASLEEP,
+				SpriteTable.texture(SpriteTable.DRAGON | SpriteTable.ARMED | SpriteTable.ASLEEP | SpriteTable.WITH_EAGLE));
+		assertEquals(TextureCache.DRAGON_ASLEEP, SpriteTable.texture(SpriteTable.DRAGON | SpriteTable.ASLEEP));
+	}
+
+	@Test
+	public void TestCommandsAreHandedOverInOrder() throws InterruptedException {
+
+		final InputHandler handler = new InputHandler();
+
+		// Added on another thread (as the Swing thread does), while the game waits.
+		Thread window = new Thread(new Runnable() {
+			public void run() {
+				for(int keyCode = 1; keyCode <= 100; keyCode++) {
+					handler.addCommand(keyCode);
+					if(keyCode % 10 == 0) {
+						Thread.yield();
+					}
+				}
+			}
+		});
+		window.start();
+
+		for(int keyCode = 1; keyCode <= 100; keyCode++) {
+			assertEquals(keyCode, (int) handler.getNextCommand());
+			handler.removeCommand();
+		}
+
+		window.join();
+	}
+
+	@Test
+	public void TestCommandStaysUntilRemoved() {
+
+		InputHandler handler = new InputHandler();
+		assertEquals(0, handler.getCommandTime());
+
+		long before = System.nanoTime();
+		handler.addCommand(7);
+		handler.addCommand(8);
+
+		// Looked at as many times as needed, until it is removed.
+		assertEquals(7, (int) handler.getNextCommand());
+		long time = handler.getCommandTime();
+		assertTrue(time >= before);
+		assertEquals(7, (int) handler.getNextCommand());
+		assertEquals(time, handler.getCommandTime());
+
+		handler.removeCommand();
+		assertEquals(8, (int) handler.getNextCommand());
+		handler.removeCommand();
+		assertEquals(0, handler.getCommandTime());
+
+		// A terminated handler doesn't take any more commands.
+		handler.setTerminate(true);
+		handler.addCommand(9);
+		Thread.currentThread().interrupt();
+		assertEquals(InputHandler.INTERRUPTED, (int) handler.getNextCommand());
+		Thread.interrupted();
+	}
+
+	@Test
+	public void TestInterruptedWaitEnds() throws InterruptedException {
+
+		final InputHandler handler = new InputHandler();
+		final int got[] = {0};
+		final boolean interrupted[] = {false};
+
+		Thread game = new Thread(new Runnable() {
+			public void run() {
+				got[0] = handler.getNextCommand();
+				interrupted[0] = Thread.currentThread().isInterrupted();
+			}
+		});
+		game.start();
+
+		game.interrupt();
+		game.join(5000);
+
+		assertFalse(game.isAlive());
+		assertEquals(InputHandler.INTERRUPTED, got[0]);
+		assertTrue(interrupted[0]);
+	}
+
+	/**
+	 * AUXILIARES
+	 */
+	private GameLogic newGame(int size, long seed) {
+		return newGame(size, 1, 0.04, seed);
+	}
+
+	private GameLogic newGame(int size, int difficulty, double dragonPerc, long seed) {
+
+		GameConfig config = new GameConfig(size, difficulty, dragonPerc);
+		config.setSeed(seed);
+		config.setMode(GameConfig.HEADLESS);
+
+		GameLogic game = new GameLogic(config);
+		game.init();
+		game.setGameBoard();
+
+		return game;
+	}
+
+	private void assertPicturesOf(GameLogic game, SpriteTable sprites) {
+
+		int size = game.getMaze().getSize();
+		assertEquals(size, sprites.getSize());
+
+		for(int x = 0; x < size; x++) {
+			for(int y = 0; y < size; y++) {
+				assertEquals(pictureAt(game, x, y), sprites.textureAt(x, y));
+			}
+		}
+	}
+
+	// Picture of a tile as the board picked it before SpriteTable.
+	private int pictureAt(GameLogic game, int x, int y) {
+
+		Dragon dragon = game.dragonAt(x, y);
+
+		if(dragon != null) {
+			if(game.getEagle().isAt(x, y)) {
+				if(dragon.hasSword()) {
+					return dragon.isAwake() ? TextureCache.EAGLE_UPON_DRAGON_WITH_SWORD : TextureCache.EAGLE_UPON_DRAGON_WITH_SWORD_ASLEEP;
+				}
+				return dragon.isAwake() ? TextureCache.EAGLE_UPON_DRAGON : TextureCache.EAGLE_UPON_DRAGON_ASLEEP;
+			}
+			if(dragon.hasSword()) {
+				return dragon.isAwake() ? TextureCache.DRAGON_WITH_SWORD : TextureCache.DRAGON_WITH_SWORD_ASLEEP;
+			}
+			return dragon.isAwake() ? TextureCache.DRAGON : TextureCache.DRAGON_ASLEEP;
+		}
+
+		if(game.getHero().isAlive() && game.getHero().isAt(x, y)) {
+			if(game.getHero().hasEagle()) {
+				return game.getHero().hasSword() ? TextureCache.HERO_WITH_SWORD_AND_EAGLE : TextureCache.HERO_WITH_EAGLE;
+			}
+			return game.getHero().hasSword() ? TextureCache.HERO_WITH_SWORD : TextureCache.HERO;
+		}
+
+		if(game.getEagle().isAlive() && !game.getHero().hasEagle() && game.getEagle().isAt(x, y)) {
+			if(game.getEagle().hasSword()) {
+				return game.getMaze().isWall(x, y) ? TextureCache.EAGLE_UPON_WALL_WITH_SWORD : TextureCache.EAGLE_WITH_SWORD;
+			}
+			return game.getMaze().isWall(x, y) ? TextureCache.EAGLE_UPON_WALL : TextureCache.EAGLE;
+		}
+
+		if(!game.getHero().hasSword() && !game.getEagle().hasSword() && game.getSword().isAt(x, y)) {
+			return TextureCache.SWORD;
+		}
+
+		if(game.getMaze().getExit().isAt(x, y)) {
+			return TextureCache.EXIT;
+		}
+
+		return game.getMaze().isWall(x, y) ? TextureCache.WALL : TextureCache.FLOOR;
+	}
+
+	// What Output.draw() printed before frames were buffered.
+	private String plainFrame(GameLogic game) {
+
+		StringBuilder frame = new StringBuilder();
+
+		frame.append("+-------- Commands -------+").append(NEWLINE);
+		frame.append("Move........... [w,a,s,d] |").append(NEWLINE);
+		frame.append("Confirm........  [enter]  |").append(NEWLINE);
+		frame.append("Quit...........    [q]    |").append(NEWLINE);
+		frame.append("+-------------------------+").append(NEWLINE);
+		frame.append("|                         |").append(NEWLINE);
+
+		Task tasks[] = game.getTasks();
+		frame.append("+--------- Goals ---------+").append(NEWLINE);
+		for(int i = 0; i < tasks.length; i++) {
+			frame.append((i + 1) + ". ").append(tasks[i].isDone() ? "[X] " : "[ ] ");
+			frame.append(tasks[i].getDescription()).append(NEWLINE);
+		}
+		frame.append("+-------------------------+").append(NEWLINE);
+
+		char board[][] = game.getBoard();
+		for(int i = 0; i < board.length; i++) {
+			for(int j = 0; j < board.length; j++) {
+				frame.append(" " + board[i][j] + " ");
+			}
+			frame.append(NEWLINE);
+		}
+
+		return frame.toString();
+	}
+
+	private String draw(Output out, GameLogic game) {
+
+		PrintStream console = System.out;
+		ByteArrayOutputStream printed = new ByteArrayOutputStream();
+
+		System.setOut(new PrintStream(printed, true));
+		try {
+			out.draw(game);
+		}
+		finally {
+			System.setOut(console);
+		}
+
+		return printed.toString();
+	}
+
+	// Writes what was printed on a screen, as a terminal would (the escape codes Output uses).
+	private void play(List<StringBuilder> screen, String printed) {
+
+		int row = 0;
+		int column = 0;
+
+		for(int i = 0; i < printed.length(); i++) {
+
+			char c = printed.charAt(i);
+
+			if(c == '\u001b') {
+
+				int end = i + 2;
+				while(!Character.isLetter(printed.charAt(end))) {
+					end++;
+				}
+				String arguments = printed.substring(i + 2, end);
+
+				switch(printed.charAt(end)) {
+				case 'H':
+					row = 0;
+					column = 0;
+					if(!arguments.isEmpty()) {
+						row = Integer.parseInt(arguments.split(";")[0]) - 1;
+						column = Integer.parseInt(arguments.split(";")[1]) - 1;
+					}
+					break;
+				case 'J':
+					// 2J erases the screen; J, from the cursor down.
+					while(screen.size() > (arguments.equals("2") ? 0 : row)) {
+						screen.remove(screen.size() - 1);
+					}
+					break;
+				}
+				i = end;
+			}
+			else if(c == '\r') {
+				column = 0;
+			}
+			else if(c == '\n') {
+				row++;
+				column = 0;
+			}
+			else {
+				while(screen.size() <= row) {
+					screen.add(new StringBuilder());
+				}
+				StringBuilder line = screen.get(row);
+				while(line.length() <= column) {
+					line.append(' ');
+				}
+				line.setCharAt(column++, c);
+			}
+		}
+	}
+}